@@ -0,0 +1,28 @@
+package com.qooria.filesearch.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which adds the allocation rate and bytes allocated per operation to every
+ * result. Takes the usual JMH command line options, for example a benchmark name pattern or {@code -p fileCount=10000}.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Main method to run the benchmarks.
+     *
+     * @param args Array of {@link String} JMH command line options
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
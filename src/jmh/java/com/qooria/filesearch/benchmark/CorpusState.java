@@ -0,0 +1,47 @@
+package com.qooria.filesearch.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A synthetic corpus written to a temporary directory for the duration of a benchmark trial.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    static final long SEED = 42;
+
+    @Param({"2000"})
+    public int fileCount;
+
+    @Param({"4096"})
+    public int fileSize;
+
+    @Param({"20000"})
+    public int vocabularySize;
+
+    @Param({"1.0"})
+    public double zipfExponent;
+
+    public SyntheticCorpus corpus;
+    public Path directory;
+
+    @Setup(Level.Trial)
+    public void writeCorpus() throws IOException {
+        corpus = new SyntheticCorpus(vocabularySize, zipfExponent, SEED);
+        directory = Files.createTempDirectory("filesearch-benchmark");
+        corpus.write(directory, fileCount, fileSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCorpus() throws IOException {
+        SyntheticCorpus.delete(directory);
+    }
+}
@@ -0,0 +1,46 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.dto.IndexedFile;
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to index the whole synthetic corpus. Divide the file count or the corpus size by the score for the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexingBenchmark {
+
+    @Param({"1", "4"})
+    public int indexingThreads;
+
+    @Benchmark
+    public List<IndexedFile> indexDirectory(final CorpusState state) throws FileNotFoundException {
+        SearchOption options = SearchOption
+                .builder()
+                .withMaxResultCount(10)
+                .withIndexingThreads(indexingThreads)
+                .build();
+
+        return new SearchEngine(options).indexDirectory(state.directory.toString());
+    }
+}
@@ -0,0 +1,116 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.engine.CompressedPostings;
+import com.qooria.filesearch.engine.InvertedIndex;
+import com.qooria.filesearch.engine.PostingsCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decode throughput of the compressed postings of an index built in memory from the synthetic corpus, against the same
+ * postings held in plain {@code int} arrays. Times are for a pass over all the postings, whose number is printed when
+ * the trial starts together with the memory taken per posting. With {@code positions}, the index also holds term
+ * positions, which the compressed pass skips over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PostingsBenchmark {
+
+    @Param({"20000"})
+    public int fileCount;
+
+    @Param({"4096"})
+    public int fileSize;
+
+    @Param({"false", "true"})
+    public boolean positions;
+
+    private List<CompressedPostings> postings;
+    private int[][] documentIds;
+    private int[][] frequencies;
+    private long postingCount;
+
+    @Setup(Level.Trial)
+    public void index() {
+        SyntheticCorpus corpus = new SyntheticCorpus(20000, 1.0, CorpusState.SEED);
+        InvertedIndex.Builder builder = InvertedIndex.builder(positions);
+
+        for (int i = 0; i < fileCount; i++) {
+            builder.addDocument(corpus.nextText(fileSize));
+        }
+
+        InvertedIndex index = builder.build();
+        postings = new ArrayList<>();
+        index.getTerms().forEach(term -> postings.add(index.getPostings(term)));
+        documentIds = new int[postings.size()][];
+        frequencies = new int[postings.size()][];
+        long encodedSize = 0;
+        postingCount = 0;
+
+        for (int i = 0; i < postings.size(); i++) {
+            CompressedPostings list = postings.get(i);
+            PostingsCursor cursor = list.cursor();
+            documentIds[i] = new int[list.size()];
+            frequencies[i] = new int[list.size()];
+
+            for (int p = 0; cursor.next() != PostingsCursor.NO_MORE_DOCUMENTS; p++) {
+                documentIds[i][p] = cursor.documentId();
+                frequencies[i][p] = cursor.frequency();
+            }
+
+            encodedSize += list.getEncodedSize();
+            postingCount += list.size();
+        }
+
+        System.out.printf("%n%d postings: %.2f bytes per posting compressed, %d uncompressed%n",
+                postingCount, (double) encodedSize / postingCount, 2 * Integer.BYTES);
+    }
+
+    @Benchmark
+    public long decodeCompressed() {
+        long sum = 0;
+
+        for (CompressedPostings list : postings) {
+            PostingsCursor cursor = list.cursor();
+            int documentId;
+
+            while ((documentId = cursor.next()) != PostingsCursor.NO_MORE_DOCUMENTS) {
+                sum += documentId + cursor.frequency();
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long readArrays() {
+        long sum = 0;
+
+        for (int i = 0; i < documentIds.length; i++) {
+            for (int p = 0; p < documentIds[i].length; p++) {
+                sum += documentIds[i][p] + frequencies[i][p];
+            }
+        }
+
+        return sum;
+    }
+}
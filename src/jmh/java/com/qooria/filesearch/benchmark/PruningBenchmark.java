@@ -0,0 +1,95 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.engine.Bm25Scorer;
+import com.qooria.filesearch.engine.DocumentScorer;
+import com.qooria.filesearch.engine.PostingsList;
+import com.qooria.filesearch.engine.Scorer;
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
+import com.qooria.filesearch.engine.TermIndex;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of a top 10 BM25 query with WAND pruning against exhaustive scoring of every matched file, for queries of 2
+ * and 5 whole words drawn from the corpus distribution. Exhaustive scoring hides the rank bounds of the words from the
+ * engine. Skewed vocabularies, where queries mostly hold common words with long postings lists, are measured with
+ * {@code -p zipfExponent=1.2}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PruningBenchmark {
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"2", "5"})
+    public int termCount;
+
+    @Param({"false", "true"})
+    public boolean pruning;
+
+    private SearchEngine engine;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void index(final CorpusState state) throws FileNotFoundException {
+        Scorer scorer = new Bm25Scorer();
+        SearchOption options = SearchOption
+                .builder()
+                .withMaxResultCount(10)
+                .withWholeWordMatch(true)
+                .withScorer(pruning ? scorer : new UnboundedScorer(scorer))
+                .withIndexingThreads(Runtime.getRuntime().availableProcessors())
+                .build();
+
+        engine = new SearchEngine(options);
+        engine.indexDirectory(state.directory.toString());
+
+        SyntheticCorpus queryCorpus = new SyntheticCorpus(state.vocabularySize, state.zipfExponent, CorpusState.SEED + 1);
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = queryCorpus.nextQuery(termCount);
+        }
+    }
+
+    @Benchmark
+    public List<FileResult> search() {
+        return engine.search(queries[next++ & (QUERY_COUNT - 1)]);
+    }
+
+    /**
+     * Scorer ranking like another one without bounding the rank of any word, so every matched file is scored.
+     */
+    private static final class UnboundedScorer implements Scorer {
+        private final Scorer scorer;
+
+        private UnboundedScorer(final Scorer scorer) {
+            this.scorer = scorer;
+        }
+
+        @Override
+        public DocumentScorer newDocumentScorer(final TermIndex index, final PostingsList[] postings) {
+            return scorer.newDocumentScorer(index, postings)::rank;
+        }
+    }
+}
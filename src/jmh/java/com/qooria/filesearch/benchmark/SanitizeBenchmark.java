@@ -0,0 +1,96 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.common.SearchUtil;
+import com.qooria.filesearch.common.Tokenizer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to sanitize and split into terms the content of one file, as done for every file while indexing, and to parse a
+ * query, each with the single-pass {@link Tokenizer} and with the regular expressions it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SanitizeBenchmark {
+    private static final String SANITATION_PATTERN = "[^-:,. a-zA-Z0-9]";
+
+    @Param({"4096", "1048576"})
+    public int fileSize;
+
+    private String content;
+    private String query;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        SyntheticCorpus corpus = new SyntheticCorpus(20000, 1.0, CorpusState.SEED);
+        content = corpus.nextText(fileSize);
+        query = corpus.nextQuery(10);
+    }
+
+    @Benchmark
+    public String sanitize() {
+        return SearchUtil.sanitize(content, false);
+    }
+
+    @Benchmark
+    public String sanitizeWithRegex() {
+        return content.replaceAll(SANITATION_PATTERN, "").trim().toLowerCase();
+    }
+
+    @Benchmark
+    public Map<String, Integer> tokenize() {
+        Tokenizer tokenizer = new Tokenizer(false);
+        tokenizer.accept(content);
+        return tokenizer.finish();
+    }
+
+    @Benchmark
+    public Map<String, Integer> tokenizeWithRegex() {
+        Map<String, Integer> frequencies = new HashMap<>();
+
+        for (String term : sanitizeWithRegex().split("[^a-zA-Z0-9]+")) {
+            if (!term.isEmpty()) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+        }
+
+        return frequencies;
+    }
+
+    @Benchmark
+    public List<String> parseQuery() {
+        return Tokenizer.splitWords(Tokenizer.sanitize(query, false));
+    }
+
+    @Benchmark
+    public List<String> parseQueryWithRegex() {
+        String sanitized = query.replaceAll(SANITATION_PATTERN, "").trim().toLowerCase();
+        return Arrays.stream(sanitized.split("\\s+"))
+                .filter(word -> Pattern.compile("^[a-zA-Z0-9]*$", Pattern.CASE_INSENSITIVE).matcher(word).matches())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
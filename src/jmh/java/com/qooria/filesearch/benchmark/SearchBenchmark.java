@@ -0,0 +1,70 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of a query over the indexed synthetic corpus, for queries of 1, 3 and 10 words drawn from the corpus
+ * distribution, with exact and fast ranking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int QUERY_COUNT = 64;
+
+    @Param({"1", "3", "10"})
+    public int termCount;
+
+    @Param({"false", "true"})
+    public boolean fastRanking;
+
+    private SearchEngine engine;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void index(final CorpusState state) throws FileNotFoundException {
+        SearchOption options = SearchOption
+                .builder()
+                .withMaxResultCount(10)
+                .withFastRanking(fastRanking)
+                .withIndexingThreads(Runtime.getRuntime().availableProcessors())
+                .build();
+
+        engine = new SearchEngine(options);
+        engine.indexDirectory(state.directory.toString());
+
+        SyntheticCorpus queryCorpus = new SyntheticCorpus(state.vocabularySize, state.zipfExponent, CorpusState.SEED + 1);
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = queryCorpus.nextQuery(termCount);
+        }
+    }
+
+    @Benchmark
+    public List<FileResult> search() {
+        return engine.search(queries[next++ & (QUERY_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,102 @@
+package com.qooria.filesearch.benchmark;
+
+import com.qooria.filesearch.SearchServer;
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load test of the HTTP server over the indexed synthetic corpus: 16 clients issuing 3 word queries back to back on
+ * keep-alive connections, reported as throughput and as sampled latencies, whose percentiles show the tail. Rejected
+ * requests are answered at once, so the share of {@code 503} answers is the cost of a queue too small for the load.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(16)
+@Fork(1)
+public class ServerBenchmark {
+    private static final int QUERY_COUNT = 64;
+    private static final int TERM_COUNT = 3;
+
+    @Param({"64"})
+    public int queuePerThread;
+
+    private SearchServer server;
+    private String[] paths;
+
+    @Setup(Level.Trial)
+    public void start(final CorpusState state) throws IOException {
+        SearchOption options = SearchOption
+                .builder()
+                .withMaxResultCount(10)
+                .withIndexingThreads(Runtime.getRuntime().availableProcessors())
+                .build();
+
+        SearchEngine engine = new SearchEngine(options);
+        engine.indexDirectory(state.directory.toString());
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        server = new SearchServer(engine, 0, threads, threads * queuePerThread);
+        server.start();
+
+        SyntheticCorpus queryCorpus = new SyntheticCorpus(state.vocabularySize, state.zipfExponent, CorpusState.SEED + 1);
+        paths = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            paths[i] = SearchServer.SEARCH_PATH + "?limit=10&q=" + URLEncoder.encode(queryCorpus.nextQuery(TERM_COUNT), "UTF-8");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int search(final Client client) throws IOException {
+        URL url = new URL("http", "127.0.0.1", server.getPort(), paths[client.next++ & (QUERY_COUNT - 1)]);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status = connection.getResponseCode();
+
+        // reading the whole body and closing it hands the connection back to the keep-alive cache
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            while (body.read(client.buffer) >= 0) {
+                // discarded
+            }
+        }
+
+        return status;
+    }
+
+    /**
+     * Position of a client in the queries, and its read buffer.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private final byte[] buffer = new byte[8192];
+        private int next;
+    }
+}
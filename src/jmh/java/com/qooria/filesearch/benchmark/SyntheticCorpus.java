@@ -0,0 +1,160 @@
+package com.qooria.filesearch.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generator of synthetic text whose words are drawn from a fixed vocabulary with a Zipf distribution: the word of rank
+ * {@code r} is drawn with a probability proportional to {@code 1 / r^s}, {@code s} being the Zipf exponent. An exponent
+ * of 0 gives a uniform vocabulary, around 1 is typical of natural language.
+ */
+public final class SyntheticCorpus {
+    private static final int FILES_PER_DIRECTORY = 100;
+    private static final int WORDS_PER_SENTENCE = 12;
+    private static final int SENTENCES_PER_LINE = 6;
+    private final String[] vocabulary;
+    private final double[] cumulativeProbabilities;
+    private final Random random;
+
+    /**
+     * Constructor to initialize the vocabulary.
+     *
+     * @param vocabularySize The number of distinct words
+     * @param zipfExponent   The Zipf exponent of the word distribution
+     * @param seed           The random seed, so that the same parameters give the same corpus
+     */
+    public SyntheticCorpus(final int vocabularySize, final double zipfExponent, final long seed) {
+        this.vocabulary = new String[vocabularySize];
+        this.cumulativeProbabilities = new double[vocabularySize];
+        this.random = new Random(seed);
+
+        double total = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            vocabulary[rank] = word(rank);
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            cumulativeProbabilities[rank] = total;
+        }
+
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            cumulativeProbabilities[rank] /= total;
+        }
+    }
+
+    /**
+     * Draws a word of the vocabulary.
+     *
+     * @return {@link String} The word
+     */
+    public String nextWord() {
+        int rank = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+        return vocabulary[Math.min(rank < 0 ? -rank - 1 : rank, vocabulary.length - 1)];
+    }
+
+    /**
+     * Draws a query of distinct words, separated by spaces.
+     *
+     * @param termCount The number of words
+     * @return {@link String} The query
+     */
+    public String nextQuery(final int termCount) {
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < Math.min(termCount, vocabulary.length)) {
+            words.add(nextWord());
+        }
+        return String.join(" ", words);
+    }
+
+    /**
+     * Draws a text of capitalized sentences spread over several lines.
+     *
+     * @param size The approximate number of characters
+     * @return {@link String} The text
+     */
+    public String nextText(final int size) {
+        StringBuilder text = new StringBuilder(size + 32);
+        int words = 0;
+
+        while (text.length() < size) {
+            String word = nextWord();
+            boolean sentenceStart = words % WORDS_PER_SENTENCE == 0;
+            text.append(sentenceStart ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            words++;
+
+            if (words % (WORDS_PER_SENTENCE * SENTENCES_PER_LINE) == 0) {
+                text.append(".\n");
+            } else if (words % WORDS_PER_SENTENCE == 0) {
+                text.append(". ");
+            } else {
+                text.append(random.nextInt(10) == 0 ? ", " : " ");
+            }
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Writes text files into a directory, {@value #FILES_PER_DIRECTORY} files per subdirectory.
+     *
+     * @param directory The directory to write to
+     * @param fileCount The number of files
+     * @param fileSize  The approximate size of each file in characters
+     * @throws IOException if a file cannot be written
+     */
+    public void write(final Path directory, final int fileCount, final int fileSize) throws IOException {
+        for (int i = 0; i < fileCount; i++) {
+            Path subdirectory = Files.createDirectories(directory.resolve("dir" + i / FILES_PER_DIRECTORY));
+            Files.write(subdirectory.resolve("file" + i + ".txt"), nextText(fileSize).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     *
+     * @param directory The directory to delete
+     * @throws IOException if a file cannot be deleted
+     */
+    public static void delete(final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Spells a rank in base 26 with a consonant-vowel pattern, so that words look alike and share substrings the way
+     * real words do.
+     */
+    private static String word(final int rank) {
+        final String consonants = "bcdfghjklmnpqrstvwz";
+        final String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int value = rank;
+
+        do {
+            word.append(consonants.charAt(value % consonants.length()));
+            value /= consonants.length();
+            word.append(vowels.charAt(value % vowels.length()));
+            value /= vowels.length();
+        } while (value > 0);
+
+        return word.toString();
+    }
+}
@@ -0,0 +1,154 @@
+package com.qooria.filesearch;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.engine.SearchEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-interactive search of a stream of queries, one per line, run concurrently on a pool of worker threads.
+ * <p>
+ * Results are written in the order of the queries as newline-delimited JSON, one object per query holding either its
+ * results or its error. Only a limited number of queries are in flight ahead of the writer, so memory does not grow
+ * with the number of queries. Once all are written, the throughput and the latency percentiles of the searches are
+ * reported.
+ */
+final class BatchSearch {
+    private static final int QUERIES_AHEAD_PER_THREAD = 16;
+    private static final String REPORT_FORMAT = "%d queries in %d ms: %.1f queries/s, p50 %.1f us, p99 %.1f us%n";
+    private final SearchEngine engine;
+    private final int threads;
+    private final Writer output;
+    private final PrintStream reportStream;
+    private long[] latencies = new long[1024];
+    private int count;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param engine       {@link SearchEngine} The search engine, holding the index to search
+     * @param threads      The number of worker threads
+     * @param output       {@link Writer} The writer of the results, buffered by the caller
+     * @param reportStream {@link PrintStream} The stream the report is printed to
+     */
+    BatchSearch(final SearchEngine engine, final int threads, final Writer output, final PrintStream reportStream) {
+        this.engine = engine;
+        this.threads = Math.max(threads, 1);
+        this.output = output;
+        this.reportStream = reportStream;
+    }
+
+    /**
+     * Runs the queries of a reader until its end, blank lines being skipped, then prints the report. The results written
+     * are flushed even if reading the queries fails.
+     *
+     * @param queries {@link BufferedReader} The reader of the queries
+     */
+    void run(final BufferedReader queries) throws IOException {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final Deque<CompletableFuture<QueryResult>> pending = new ArrayDeque<>();
+        final long start = System.nanoTime();
+        count = 0;
+
+        try {
+            String query;
+
+            while ((query = queries.readLine()) != null) {
+                if (query.trim().isEmpty()) {
+                    continue;
+                }
+
+                if (pending.size() == threads * QUERIES_AHEAD_PER_THREAD) {
+                    write(pending.poll().join());
+                }
+
+                final String term = query;
+                pending.add(CompletableFuture.supplyAsync(() -> search(term), pool));
+            }
+
+            while (!pending.isEmpty()) {
+                write(pending.poll().join());
+            }
+        } finally {
+            pool.shutdownNow();
+            output.flush();
+        }
+
+        report(System.nanoTime() - start);
+    }
+
+    private void write(final QueryResult result) throws IOException {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+
+        latencies[count++] = result.nanos;
+        output.write(result.line);
+    }
+
+    /**
+     * Runs a query and formats its result line.
+     */
+    private QueryResult search(final String query) {
+        final long start = System.nanoTime();
+
+        try {
+            final List<FileResult> results = engine.search(query);
+            final long nanos = System.nanoTime() - start;
+            return new QueryResult(SearchJson.results(query, results, results.size()).append('\n').toString(), nanos);
+        } catch (IllegalArgumentException e) {
+            final long nanos = System.nanoTime() - start;
+            return new QueryResult(SearchJson.error(query, e.getMessage()).append('\n').toString(), nanos);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            final long nanos = System.nanoTime() - start;
+            return new QueryResult(SearchJson.error(query, ConsoleMessage.SEARCH_FAILED.getMessage()).append('\n').toString(), nanos);
+        }
+    }
+
+    /**
+     * Prints the throughput and the latency percentiles of the queries written.
+     */
+    private void report(final long elapsedNanos) {
+        final long[] sortedLatencies = Arrays.copyOf(latencies, count);
+        Arrays.sort(sortedLatencies);
+        final double seconds = elapsedNanos / 1e9;
+
+        reportStream.printf(REPORT_FORMAT, count, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), seconds > 0 ? count / seconds : 0,
+                getPercentile(sortedLatencies, 50) / 1e3, getPercentile(sortedLatencies, 99) / 1e3);
+    }
+
+    private static long getPercentile(final long[] sortedValues, final double percentile) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+
+        final int rank = (int) Math.ceil(percentile / 100 * sortedValues.length);
+        return sortedValues[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Result line of a query, with the latency of its search.
+     */
+    private static final class QueryResult {
+        private final String line;
+        private final long nanos;
+
+        private QueryResult(final String line, final long nanos) {
+            this.line = line;
+            this.nanos = nanos;
+        }
+    }
+}
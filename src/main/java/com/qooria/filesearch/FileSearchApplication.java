@@ -19,13 +19,14 @@ import java.util.List;
 class FileSearchApplication {
     private static final String RESULT_FORMAT = "%s:%d%%%n";
     private static final String RESULT_COUNT_FORMAT = "%d %s %s%n";
-    private final String directory;
+    private final String source;
+    private final ConsoleMessage sourceDescription;
     private final SearchEngine engine;
     private final BufferedReader inputReader;
     private final PrintStream outputStream;
 
     /**
-     * Constructor to initialize fields.
+     * Constructor to initialize fields and index the directory.
      *
      * @param directory    {@link String} The directory to index
      * @param engine       {@link SearchEngine} The search engine
@@ -33,11 +34,25 @@ class FileSearchApplication {
      * @param outputStream {@link PrintStream} The output stream
      */
     FileSearchApplication(final String directory, final SearchEngine engine, final BufferedReader inputReader, final PrintStream outputStream) throws FileNotFoundException {
-        this.directory = directory;
+        this(directory, ConsoleMessage.RESULT_COUNT_DESCRIPTION, engine, inputReader, outputStream);
+        engine.indexDirectory(directory);
+    }
+
+    /**
+     * Constructor to initialize fields for an engine that already holds an index.
+     *
+     * @param source            {@link String} Where the indexed files come from
+     * @param sourceDescription {@link ConsoleMessage} The description of the source printed with the file count
+     * @param engine            {@link SearchEngine} The search engine
+     * @param inputReader       {@link BufferedReader} The input reader
+     * @param outputStream      {@link PrintStream} The output stream
+     */
+    FileSearchApplication(final String source, final ConsoleMessage sourceDescription, final SearchEngine engine, final BufferedReader inputReader, final PrintStream outputStream) {
+        this.source = source;
+        this.sourceDescription = sourceDescription;
         this.engine = engine;
         this.inputReader = inputReader;
         this.outputStream = outputStream;
-        engine.indexDirectory(directory);
     }
 
     /**
@@ -51,7 +66,7 @@ class FileSearchApplication {
             return;
         }
 
-        outputStream.printf(RESULT_COUNT_FORMAT, files.size(), ConsoleMessage.RESULT_COUNT_DESCRIPTION.getMessage(), directory);
+        outputStream.printf(RESULT_COUNT_FORMAT, files.size(), sourceDescription.getMessage(), source);
 
         try (BufferedReader keyboard = inputReader) {
 
@@ -70,9 +85,13 @@ class FileSearchApplication {
                     Command command = SearchUtil.getCommand(cleanLine);
                     command.execute();
                 } else {
-
-                    List<FileResult> results = engine.search(cleanLine);
-                    printResult(results);
+                    // The engine sanitizes the line itself, after finding the phrases and joins in it.
+                    try {
+                        List<FileResult> results = engine.search(line);
+                        printResult(results);
+                    } catch (IllegalArgumentException e) {
+                        outputStream.println(e.getMessage());
+                    }
                 }
             }
         }
@@ -1,43 +1,186 @@
 package com.qooria.filesearch;
 
+import com.qooria.filesearch.engine.Bm25Scorer;
+import com.qooria.filesearch.engine.DirectoryWatcher;
 import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.EmphasisScorer;
 import com.qooria.filesearch.engine.SearchOption;
 import com.qooria.filesearch.common.ConsoleMessage;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * The main application runner.
  */
 public class FileSearchRunner {
     private static final int MAXIMUM_RESULT_COUNT = 10;
+    private static final int QUERY_CACHE_SIZE = 256;
+    private static final String METRICS_NAME = "engine";
     private static final String CASE_SENSITIVITY_FLAG = "-s";
+    private static final String WRITE_INDEX_FLAG = "-w";
+    private static final String READ_INDEX_FLAG = "-r";
+    private static final String FOLLOW_CHANGES_FLAG = "-f";
+    private static final String BM25_FLAG = "-b";
+    private static final String POSITIONS_FLAG = "-p";
+    private static final String QUERY_FILE_FLAG = "-q";
+    private static final String LISTEN_FLAG = "-l";
+    private static final int SERVER_QUEUE_PER_THREAD = 64;
+    private static final String LISTENING_FORMAT = "%s http://%s:%d%s%n";
+    private static final String STANDARD_INPUT = "-";
+    private static final String FLAG_PREFIX = "-";
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Main method to run the application.
+     * <p>
+     * Arguments: {@code <directory> [-s] [-w <index-file>]} to index a directory, optionally writing its index to a
+     * file, or {@code -r <index-file> [<directory>] [-s]} to load an index written before instead of indexing, and
+     * bring it up to date with the directory if one is given. With {@code -f}, which needs a directory, changes of the
+     * directory are followed while the application runs, and with {@code -b} results are ranked with BM25 instead of
+     * the default ranking. With {@code -p}, term positions are indexed so that phrase and {@code NEAR/k} queries can be
+     * run. With {@code -q <query-file>}, the queries of the file, or of the standard input if it is {@code -}, are run
+     * in a batch instead of at the prompt, their results written to the standard output as newline-delimited JSON and
+     * the throughput and latencies to the standard error. With {@code -l <port>}, the queries are instead served over
+     * HTTP on the loopback address, at {@code /search?q=<query>&limit=<count>}, until the application is stopped.
+     * Unknown flags and more than one directory are rejected.
      *
      * @param args Array of {@link String} arguments
      */
     public static void main(String[] args) throws IOException {
-        if (args.length == 0) {
+        String directory = null;
+        String writeIndexFile = null;
+        String readIndexFile = null;
+        boolean isCaseSensitive = false;
+        boolean followChanges = false;
+        boolean bm25 = false;
+        boolean indexPositions = false;
+        String queryFile = null;
+        Integer port = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase(CASE_SENSITIVITY_FLAG)) {
+                isCaseSensitive = true;
+            } else if (args[i].equalsIgnoreCase(WRITE_INDEX_FLAG)) {
+                writeIndexFile = getFlagValue(args, ++i);
+            } else if (args[i].equalsIgnoreCase(READ_INDEX_FLAG)) {
+                readIndexFile = getFlagValue(args, ++i);
+            } else if (args[i].equalsIgnoreCase(FOLLOW_CHANGES_FLAG)) {
+                followChanges = true;
+            } else if (args[i].equalsIgnoreCase(BM25_FLAG)) {
+                bm25 = true;
+            } else if (args[i].equalsIgnoreCase(POSITIONS_FLAG)) {
+                indexPositions = true;
+            } else if (args[i].equalsIgnoreCase(QUERY_FILE_FLAG)) {
+                queryFile = getFlagValue(args, ++i);
+            } else if (args[i].equalsIgnoreCase(LISTEN_FLAG)) {
+                port = getPort(getFlagValue(args, ++i));
+            } else if (args[i].startsWith(FLAG_PREFIX) || directory != null) {
+                throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+            } else {
+                directory = args[i];
+            }
+        }
+
+        if (directory == null && readIndexFile == null) {
             throw new IllegalArgumentException(ConsoleMessage.NO_DIRECTORY_PROVIDED.getMessage());
         }
 
-        boolean isCaseSensitive = args.length == 2 && args[1].equalsIgnoreCase(CASE_SENSITIVITY_FLAG);
+        if (followChanges && directory == null) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
         SearchOption options = SearchOption
                 .builder()
                 .withCaseSensitive(isCaseSensitive)
                 .withMaxResultCount(MAXIMUM_RESULT_COUNT) //Would be passed from terminal
+                .withIndexingThreads(Runtime.getRuntime().availableProcessors())
+                .withScorer(bm25 ? new Bm25Scorer() : new EmphasisScorer())
+                .withIndexPositions(indexPositions)
+                .withQueryCacheSize(QUERY_CACHE_SIZE)
                 .build();
         SearchEngine engine = new SearchEngine(options);
+        engine.getMetrics().register(METRICS_NAME);
 
         BufferedReader inputReader = new BufferedReader(new InputStreamReader(System.in));
         PrintStream outputStream = System.out;
 
-        FileSearchApplication application = new FileSearchApplication(args[0], engine, inputReader, outputStream);
+        FileSearchApplication application;
+
+        if (readIndexFile != null) {
+            engine.loadIndex(readIndexFile);
+
+            if (directory != null) {
+                engine.updateDirectory(directory);
+            }
+
+            application = new FileSearchApplication(readIndexFile, ConsoleMessage.INDEX_RESULT_COUNT_DESCRIPTION, engine, inputReader, outputStream);
+        } else {
+            application = new FileSearchApplication(directory, engine, inputReader, outputStream);
+        }
+
+        if (writeIndexFile != null) {
+            engine.writeIndex(writeIndexFile);
+        }
+
+        if (queryFile != null) {
+            runBatch(engine, queryFile);
+            return;
+        }
+
+        if (followChanges) {
+            new DirectoryWatcher(engine, directory).start();
+        }
+
+        if (port != null) {
+            serve(engine, port);
+            return;
+        }
+
         application.start();
     }
+
+    private static void runBatch(SearchEngine engine, String queryFile) throws IOException {
+        BufferedReader queries = queryFile.equals(STANDARD_INPUT)
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(queryFile), StandardCharsets.UTF_8);
+        BufferedWriter output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+
+        try (BufferedReader reader = queries) {
+            new BatchSearch(engine, Runtime.getRuntime().availableProcessors(), output, System.err).run(reader);
+        }
+    }
+
+    private static void serve(SearchEngine engine, int port) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        SearchServer server = new SearchServer(engine, port, threads, threads * SERVER_QUEUE_PER_THREAD);
+        server.start();
+
+        System.out.printf(LISTENING_FORMAT, ConsoleMessage.SERVER_LISTENING.getMessage(),
+                InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), SearchServer.SEARCH_PATH);
+    }
+
+    private static int getPort(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+    }
+
+    private static String getFlagValue(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
+        return args[index];
+    }
 }
@@ -0,0 +1,80 @@
+package com.qooria.filesearch;
+
+import com.qooria.filesearch.dto.FileResult;
+
+import java.util.List;
+
+/**
+ * Formats search results and errors as JSON objects, for the batch mode and the server.
+ */
+final class SearchJson {
+
+    private SearchJson() {
+    }
+
+    /**
+     * Formats the results of a query as an object holding the query and an array of its results, each with the path,
+     * score and rank of its {@link FileResult}.
+     *
+     * @param query   {@link String} The query
+     * @param results {@link List} of {@link FileResult} The results, of which at most {@code limit} are formatted
+     * @param limit   The maximum number of results formatted
+     * @return {@link StringBuilder} The object
+     */
+    static StringBuilder results(final String query, final List<FileResult> results, final int limit) {
+        final StringBuilder json = new StringBuilder("{\"query\":");
+        appendString(json, query);
+        json.append(",\"results\":[");
+
+        for (int i = 0; i < Math.min(results.size(), limit); i++) {
+            json.append(i == 0 ? "{\"path\":" : ",{\"path\":");
+            appendString(json, results.get(i).getPath());
+            json.append(",\"score\":").append(results.get(i).getScore());
+            json.append(",\"rank\":").append(results.get(i).getRank()).append('}');
+        }
+
+        return json.append("]}");
+    }
+
+    /**
+     * Formats the error of a query as an object holding the query, if any, and the error message.
+     *
+     * @param query   {@link String} The query, or {@code null}
+     * @param message {@link String} The error message
+     * @return {@link StringBuilder} The object
+     */
+    static StringBuilder error(final String query, final String message) {
+        final StringBuilder json = new StringBuilder("{");
+
+        if (query != null) {
+            json.append("\"query\":");
+            appendString(json, query);
+            json.append(',');
+        }
+
+        json.append("\"error\":");
+        appendString(json, message);
+        return json.append('}');
+    }
+
+    /**
+     * Appends a string as a JSON string literal.
+     */
+    private static void appendString(final StringBuilder json, final String string) {
+        json.append('"');
+
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+
+        json.append('"');
+    }
+}
@@ -0,0 +1,194 @@
+package com.qooria.filesearch;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.engine.SearchEngine;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP server answering {@code GET /search?q=<query>&limit=<count>} with the results of a search engine as JSON,
+ * formatted like a line of the batch mode. It only listens on the loopback address.
+ * <p>
+ * Requests are accepted and parsed on the dispatcher thread of a JDK {@link HttpServer}, which keeps connections
+ * alive, and searched on a fixed pool of worker threads behind a bounded queue. When the queue is full, the request is
+ * answered at once with {@code 503 Service Unavailable} and a {@code Retry-After} header instead of waiting, so a
+ * burst of queries cannot grow the backlog, and its latency, without bound.
+ */
+public final class SearchServer {
+    /**
+     * Path of the search endpoint.
+     */
+    public static final String SEARCH_PATH = "/search";
+    private static final String QUERY_PARAMETER = "q";
+    private static final String LIMIT_PARAMETER = "limit";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String RETRY_AFTER_SECONDS = "1";
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_SERVER_ERROR = 500;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private final SearchEngine engine;
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Constructor to bind the server to a port of the loopback address. It does not answer until started.
+     *
+     * @param engine        {@link SearchEngine} The search engine, holding the index to search
+     * @param port          The port, 0 for any free port
+     * @param threads       The number of worker threads running searches
+     * @param queueCapacity The number of requests that can wait for a worker before requests are rejected
+     * @throws IOException if the port cannot be bound
+     */
+    public SearchServer(final SearchEngine engine, final int port, final int threads, final int queueCapacity) throws IOException {
+        this.engine = engine;
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext(SEARCH_PATH, this::accept);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops answering requests, letting the searches in progress finish.
+     */
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+
+    /**
+     * Get the port the server is bound to.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Hands a request over to the workers, or rejects it if they are saturated. Runs on the dispatcher thread.
+     */
+    private void accept(final HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals(SEARCH_PATH)) {
+            respond(exchange, NOT_FOUND, SearchJson.error(null, ConsoleMessage.UNKNOWN_PATH.getMessage()));
+            return;
+        }
+
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respond(exchange, METHOD_NOT_ALLOWED, SearchJson.error(null, ConsoleMessage.INVALID_INPUT.getMessage()));
+            return;
+        }
+
+        try {
+            workers.execute(() -> search(exchange));
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            respond(exchange, SERVICE_UNAVAILABLE, SearchJson.error(null, ConsoleMessage.SERVER_BUSY.getMessage()));
+        }
+    }
+
+    /**
+     * Runs a search on a worker thread. A failure of the search is answered with {@code 500 Internal Server Error}, so
+     * the connection can be kept alive; only a failure to write the response closes it.
+     */
+    private void search(final HttpExchange exchange) {
+        String query = null;
+
+        try {
+            try {
+                final Map<String, String> parameters = getParameters(exchange.getRequestURI().getRawQuery());
+                final Integer limit = parameters.containsKey(LIMIT_PARAMETER) ? getLimit(parameters.get(LIMIT_PARAMETER)) : null;
+                query = parameters.get(QUERY_PARAMETER);
+
+                if (query == null) {
+                    throw new IllegalArgumentException(ConsoleMessage.EMPTY_SEARCH_TERM.getMessage());
+                }
+
+                final List<FileResult> results = limit == null ? engine.search(query) : engine.search(query, limit);
+                respond(exchange, OK, SearchJson.results(query, results, results.size()));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, BAD_REQUEST, SearchJson.error(query, e.getMessage()));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                respond(exchange, INTERNAL_SERVER_ERROR, SearchJson.error(query, ConsoleMessage.SEARCH_FAILED.getMessage()));
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            exchange.close();
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final StringBuilder json) throws IOException {
+        final byte[] body = json.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Parses the limit parameter: a positive number of results, which the search returns instead of its maximum number
+     * of results.
+     */
+    private static int getLimit(final String limit) {
+        try {
+            final int value = Integer.parseInt(limit);
+
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below like any other invalid limit
+        }
+
+        throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+    }
+
+    /**
+     * Decodes the parameters of a raw query string, the first value of a parameter winning.
+     *
+     * @throws IllegalArgumentException if a parameter is not validly encoded
+     */
+    private static Map<String, String> getParameters(final String rawQuery) throws UnsupportedEncodingException {
+        final Map<String, String> parameters = new HashMap<>();
+
+        if (rawQuery == null) {
+            return parameters;
+        }
+
+        for (String parameter : rawQuery.split("&")) {
+            final int separator = parameter.indexOf('=');
+            final String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            final String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+
+        return parameters;
+    }
+}
@@ -12,6 +12,17 @@ public enum ConsoleMessage {
     INVALID_INPUT("Invalid input"),
     COMMAND_NOT_RECOGNIZED("Command not recognized"),
     FILE_NOT_FOUND("Directory or file not found"),
+    INDEX_RESULT_COUNT_DESCRIPTION("files loaded from index"),
+    INVALID_INDEX_FILE("Not a valid index file"),
+    INDEX_CASE_SENSITIVITY_MISMATCH("Index was built with a different case sensitivity"),
+    INDEX_POSITIONS_MISMATCH("Index was built with different position settings"),
+    INVALID_QUERY("Invalid query"),
+    POSITIONS_NOT_INDEXED("Phrase and proximity queries need an index with positions"),
+    NO_STATISTICS("No statistics available"),
+    UNKNOWN_PATH("Unknown path"),
+    SERVER_BUSY("Too many queries in progress, retry later"),
+    SEARCH_FAILED("Search failed"),
+    SERVER_LISTENING("Listening on"),
     NO_MATCHES_FOUND("no matches found");
 
     private String message;
@@ -1,14 +1,23 @@
 package com.qooria.filesearch.common;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Stream;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * Utility class to facilitate search operations.
@@ -16,8 +25,8 @@ import java.util.stream.Stream;
 public class SearchUtil {
     private static final Map<ConsoleCommand, Command> COMMANDS = new HashMap<>();
     private static final String COMMAND_PREFIX = ":";
-    private static final String SANITATION_PATTERN = "[^-:,. a-zA-Z0-9]";
-    private static final String TEXT_FILE_EXTENSION = ".txt";
+    private static final String STATISTICS_DOMAIN = "com.qooria.filesearch";
+    private static final String STATISTIC_FORMAT = "  %s: %s%n";
 
     static {
         loadCommands();
@@ -45,12 +54,10 @@ public class SearchUtil {
      * @param string          {@link String} The String to sanitize
      * @param isCaseSensitive Case sensitivity flag
      * @return {@link String} The transformed search term
+     * @see Tokenizer#sanitize(String, boolean)
      */
     public static String sanitize(final String string, final boolean isCaseSensitive) {
-        String cleanTerm = string.replaceAll(SANITATION_PATTERN, "");
-        cleanTerm = cleanTerm.trim();
-        cleanTerm = isCaseSensitive ? cleanTerm : cleanTerm.toLowerCase();
-        return cleanTerm;
+        return Tokenizer.sanitize(string, isCaseSensitive);
     }
 
     /**
@@ -64,31 +71,33 @@ public class SearchUtil {
     }
 
     /**
-     * Method to check if a file is a text file.
+     * Method to read file content.
      *
-     * @param file {@link File} The file to check
-     * @return {@code true} if the file is a text file, otherwise {@code false}
+     * @param file {@link File} The file to read content
+     * @return {@link String} The content of the file as string
      */
-    public static boolean isTextFile(final File file) {
-        String name = file.getName();
-        int lastIndex = name.lastIndexOf('.');
-        if (lastIndex > 0) {
-            return name.substring(lastIndex).equalsIgnoreCase(TEXT_FILE_EXTENSION);
+    public static String readFileContent(final File file) {
+        StringBuilder contentBuilder = new StringBuilder();
+        try (Stream<String> stream = Files.lines(Paths.get(file.getAbsolutePath()), StandardCharsets.UTF_8)) {
+            stream.forEach(s -> contentBuilder.append(s).append("\n"));
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
-        return false;
+        return contentBuilder.toString();
     }
 
     /**
-     * Method to read file content.
+     * Method to read content from a stream of UTF-8 text, lines ending like {@link #readFileContent(File)}. The stream
+     * is closed.
      *
-     * @param file {@link File} The file to read content
-     * @return {@link String} The content of the file as string
+     * @param input {@link InputStream} The stream to read content
+     * @return {@link String} The content of the stream as string
      */
-    public static String readFileContent(final File file) {
+    public static String readContent(final InputStream input) {
         StringBuilder contentBuilder = new StringBuilder();
-        try (Stream<String> stream = Files.lines(Paths.get(file.getAbsolutePath()), StandardCharsets.UTF_8)) {
-            stream.forEach(s -> contentBuilder.append(s).append("\n"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            reader.lines().forEach(s -> contentBuilder.append(s).append("\n"));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -119,11 +128,44 @@ public class SearchUtil {
                 .map(c -> c.getCommand().toLowerCase())
                 .toArray());
         COMMANDS.put(ConsoleCommand.LIST, () -> System.out.println(commands));
+        COMMANDS.put(ConsoleCommand.STATS, SearchUtil::printStatistics);
+    }
+
+    /**
+     * Prints the attributes of every MBean registered in the domain of the application, such as the metrics of the
+     * search engine.
+     */
+    private static void printStatistics() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            TreeSet<ObjectName> names = new TreeSet<>(server.queryNames(new ObjectName(STATISTICS_DOMAIN + ":*"), null));
+
+            if (names.isEmpty()) {
+                System.out.println(ConsoleMessage.NO_STATISTICS.getMessage());
+                return;
+            }
+
+            for (ObjectName name : names) {
+                System.out.println(name);
+                TreeSet<String> attributes = new TreeSet<>();
+
+                for (MBeanAttributeInfo attribute : server.getMBeanInfo(name).getAttributes()) {
+                    attributes.add(attribute.getName());
+                }
+                for (String attribute : attributes) {
+                    System.out.printf(STATISTIC_FORMAT, attribute, server.getAttribute(name, attribute));
+                }
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
     }
 
     private enum ConsoleCommand {
         QUIT("quit"),
         LIST("list"),
+        STATS("stats"),
         DISPLAY_UNKNOWN_COMMAND_MESSAGE("");
 
         private String command;
@@ -0,0 +1,248 @@
+package com.qooria.filesearch.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table-driven tokenizer sanitizing, lowercasing and splitting text into terms in a single pass, shared by indexing and
+ * query parsing.
+ * <p>
+ * Sanitizing keeps ASCII letters and digits, which make up terms, and the characters {@code -:,. }, which separate
+ * them, and deletes every other character, so that the characters around it join. A {@link Tokenizer} instance counts
+ * the terms of a text fed to it in pieces: unless case sensitive, the text is sanitized and lowercased first;
+ * otherwise every character other than a letter or digit separates terms. It can also record the position of every
+ * occurrence, the number of terms before it in the text.
+ */
+public final class Tokenizer {
+    private static final byte DELETED = 0;
+    private static final byte SEPARATOR = 1;
+    private static final byte TERM = 2;
+    private static final byte[] CLASSES = new byte[128];
+    private static final char[] LOWER_CASE = new char[128];
+    private final boolean caseSensitive;
+    private final boolean recordPositions;
+    private final StringBuilder term = new StringBuilder();
+    private Map<String, Integer> frequencies = new HashMap<>();
+    private Map<String, PositionList> positions = new HashMap<>();
+    private int position;
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            LOWER_CASE[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+            CLASSES[c] = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ? TERM : DELETED;
+        }
+        for (char c : "-:,. ".toCharArray()) {
+            CLASSES[c] = SEPARATOR;
+        }
+    }
+
+    /**
+     * Constructor to initialize case sensitivity.
+     *
+     * @param caseSensitive Case sensitivity flag
+     */
+    public Tokenizer(final boolean caseSensitive) {
+        this(caseSensitive, false);
+    }
+
+    /**
+     * Constructor to initialize case sensitivity and whether term positions are recorded.
+     *
+     * @param caseSensitive   Case sensitivity flag
+     * @param recordPositions Whether the positions of the terms are recorded, to be read with
+     *                        {@link #finishPositions()}
+     */
+    public Tokenizer(final boolean caseSensitive, final boolean recordPositions) {
+        this.caseSensitive = caseSensitive;
+        this.recordPositions = recordPositions;
+    }
+
+    /**
+     * Feeds the next character of the text.
+     *
+     * @param c The character
+     */
+    public void accept(final char c) {
+        final byte type = classOf(c);
+
+        if (type == TERM) {
+            term.append(caseSensitive ? c : LOWER_CASE[c]);
+        } else if (caseSensitive || type == SEPARATOR) {
+            endTerm();
+        }
+    }
+
+    /**
+     * Feeds the next characters of the text.
+     *
+     * @param text {@link CharSequence} The characters
+     */
+    public void accept(final CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * Ends the text and returns its terms. The tokenizer then starts over with a new text.
+     *
+     * @return {@link Map} of each term of the text to its frequency
+     */
+    public Map<String, Integer> finish() {
+        endTerm();
+        final Map<String, Integer> result = frequencies;
+
+        if (recordPositions) {
+            positions.forEach((t, list) -> result.put(t, list.size));
+            positions = new HashMap<>();
+        }
+
+        frequencies = new HashMap<>();
+        position = 0;
+        return result;
+    }
+
+    /**
+     * Ends the text and returns the positions of its terms, if they are recorded. The tokenizer then starts over with a
+     * new text.
+     *
+     * @return {@link Map} of each term of the text to its positions, in ascending order
+     */
+    public Map<String, int[]> finishPositions() {
+        endTerm();
+        final Map<String, int[]> result = new HashMap<>();
+        positions.forEach((t, list) -> result.put(t, Arrays.copyOf(list.values, list.size)));
+
+        positions = new HashMap<>();
+        frequencies = new HashMap<>();
+        position = 0;
+        return result;
+    }
+
+    /**
+     * Checks if a character is part of terms.
+     *
+     * @param c The character
+     * @return {@code true} if the character is an ASCII letter or digit, otherwise {@code false}
+     */
+    public static boolean isTermCharacter(final char c) {
+        return classOf(c) == TERM;
+    }
+
+    /**
+     * Sanitizes a string, trims it and lowercases it unless case sensitive.
+     *
+     * @param string          {@link String} The string to sanitize
+     * @param isCaseSensitive Case sensitivity flag
+     * @return {@link String} The sanitized string
+     */
+    public static String sanitize(final String string, final boolean isCaseSensitive) {
+        final char[] sanitized = new char[string.length()];
+        int length = 0;
+
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+
+            if (classOf(c) != DELETED && (length > 0 || c != ' ')) {
+                sanitized[length++] = isCaseSensitive ? c : LOWER_CASE[c];
+            }
+        }
+
+        while (length > 0 && sanitized[length - 1] == ' ') {
+            length--;
+        }
+
+        return new String(sanitized, 0, length);
+    }
+
+    /**
+     * Splits a text into its terms, in order and with repetitions, like the terms a {@link Tokenizer} counts in it.
+     *
+     * @param text            {@link String} The text
+     * @param isCaseSensitive Case sensitivity flag
+     * @return {@link List} of {@link String} The terms
+     */
+    public static List<String> splitTerms(final String text, final boolean isCaseSensitive) {
+        final StringBuilder term = new StringBuilder();
+        final List<String> terms = new ArrayList<>();
+
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? text.charAt(i) : ' ';
+            final byte type = classOf(c);
+
+            if (type == TERM) {
+                term.append(isCaseSensitive ? c : LOWER_CASE[c]);
+            } else if ((isCaseSensitive || type == SEPARATOR) && term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+
+        return terms;
+    }
+
+    /**
+     * Splits a sanitized search term into its distinct words, in order. Words are separated by spaces, and parts of
+     * the term that contain other separators are not words.
+     *
+     * @param sanitized {@link String} The sanitized search term
+     * @return {@link List} of {@link String} The words
+     */
+    public static List<String> splitWords(final String sanitized) {
+        final Set<String> words = new LinkedHashSet<>();
+        int start = 0;
+        boolean isWord = true;
+
+        for (int i = 0; i <= sanitized.length(); i++) {
+            final char c = i < sanitized.length() ? sanitized.charAt(i) : ' ';
+
+            if (c == ' ') {
+                if (isWord && i > start) {
+                    words.add(sanitized.substring(start, i));
+                }
+                start = i + 1;
+                isWord = true;
+            } else if (classOf(c) != TERM) {
+                isWord = false;
+            }
+        }
+
+        return new ArrayList<>(words);
+    }
+
+    private void endTerm() {
+        if (term.length() > 0) {
+            if (recordPositions) {
+                positions.computeIfAbsent(term.toString(), t -> new PositionList()).add(position);
+            } else {
+                frequencies.merge(term.toString(), 1, Integer::sum);
+            }
+            position++;
+            term.setLength(0);
+        }
+    }
+
+    private static byte classOf(final char c) {
+        return c < 128 ? CLASSES[c] : DELETED;
+    }
+
+    /**
+     * Growable list of the positions of a term.
+     */
+    private static final class PositionList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -6,6 +6,8 @@ package com.qooria.filesearch.dto;
 public class IndexedFile {
     private String path;
     private String content;
+    private long lastModified;
+    private long size;
 
     /**
      * Constructor to initialize fields.
@@ -18,6 +20,20 @@ public class IndexedFile {
         this.content = content;
     }
 
+    /**
+     * Constructor to initialize fields, including the file attributes used to detect changes.
+     *
+     * @param path         {@link String} The file path
+     * @param content      {@link String} The file content
+     * @param lastModified The last modification time of the file in milliseconds
+     * @param size         The size of the file in bytes
+     */
+    public IndexedFile(final String path, final String content, final long lastModified, final long size) {
+        this(path, content);
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
     public String getPath() {
         return path;
     }
@@ -33,4 +49,20 @@ public class IndexedFile {
     public void setContent(String content) {
         this.content = content;
     }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
 }
@@ -0,0 +1,100 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+
+/**
+ * Okapi BM25 ranking. The rank of a file is the sum, over the search words it contains, of
+ * {@code idf * f * (k1 + 1) / (f + k1 * (1 - b + b * length / averageLength))}, where {@code f} is the frequency of
+ * the word in the file, {@code length} the number of terms of the file and
+ * {@code idf = ln(1 + (N - n + 0.5) / (n + 0.5))} for {@code n} files containing the word out of {@code N}.
+ * <p>
+ * File lengths and the collection statistics are computed when indexing, so ranking a file only looks up its length.
+ * The highest frequency and lowest file length stored with the postings of every word bound its part of any rank, which
+ * lets a search skip the files that cannot enter its results.
+ * Ranks do not depend on the order of the words, and shorter files rank higher for the same frequencies.
+ */
+public final class Bm25Scorer implements Scorer {
+    /**
+     * Default term frequency saturation parameter.
+     */
+    public static final double DEFAULT_K1 = 1.2;
+    /**
+     * Default length normalization parameter.
+     */
+    public static final double DEFAULT_B = 0.75;
+    private final double k1;
+    private final double b;
+
+    /**
+     * Constructor to initialize the default parameters.
+     */
+    public Bm25Scorer() {
+        this(DEFAULT_K1, DEFAULT_B);
+    }
+
+    /**
+     * Constructor to initialize the parameters.
+     *
+     * @param k1 The term frequency saturation, at least 0
+     * @param b  The length normalization, between 0 and 1
+     */
+    public Bm25Scorer(final double k1, final double b) {
+        if (k1 < 0 || b < 0 || b > 1) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    @Override
+    public DocumentScorer newDocumentScorer(final TermIndex index, final PostingsList[] postings) {
+        final int documentCount = index.getDocumentCount();
+        final double averageLength = documentCount == 0 ? 0 : (double) index.getTotalLength() / documentCount;
+        final double[] idfs = new double[postings.length];
+        final double[] maxRanks = new double[postings.length];
+
+        for (int i = 0; i < postings.length; i++) {
+            final int documentFrequency = postings[i] == null ? 0 : postings[i].size();
+            idfs[i] = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+            if (documentFrequency > 0) {
+                final double norm = getNorm(postings[i].getMinDocumentLength(), averageLength);
+                maxRanks[i] = getRank(idfs[i], postings[i].getMaxFrequency(), norm);
+            }
+        }
+
+        return new DocumentScorer() {
+            @Override
+            public double rank(final int documentId, final int[] frequencies) {
+                final double norm = getNorm(index.getDocumentLength(documentId), averageLength);
+                double rank = 0;
+
+                for (int i = 0; i < frequencies.length; i++) {
+                    if (frequencies[i] > 0) {
+                        rank += getRank(idfs[i], frequencies[i], norm);
+                    }
+                }
+
+                return rank;
+            }
+
+            /**
+             * The part of a word grows with its frequency and shrinks with the file length, so it is highest for the
+             * highest frequency and lowest length stored with the postings of the word.
+             */
+            @Override
+            public double getMaxRank(final int word) {
+                return maxRanks[word];
+            }
+        };
+    }
+
+    private double getNorm(final int length, final double averageLength) {
+        return k1 * (1 - b + b * (averageLength == 0 ? 1 : length / averageLength));
+    }
+
+    private double getRank(final double idf, final int frequency, final double norm) {
+        return idf * frequency * (k1 + 1) / (frequency + norm);
+    }
+}
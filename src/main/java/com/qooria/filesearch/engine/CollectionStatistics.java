@@ -0,0 +1,154 @@
+package com.qooria.filesearch.engine;
+
+import java.util.List;
+
+/**
+ * Statistics of a collection of files split over several indexes: the number of files, their total number of terms and
+ * the number of files every clause of a query occurs in. Ranking the files of one index with the statistics of the
+ * whole collection gives them the ranks they would get in a single index of the collection.
+ */
+final class CollectionStatistics {
+    private final int documentCount;
+    private final long totalLength;
+    private final int[] documentFrequencies;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param documentCount       The number of files
+     * @param totalLength         The total number of terms of the files
+     * @param documentFrequencies The number of files every scored clause occurs in
+     */
+    CollectionStatistics(final int documentCount, final long totalLength, final int[] documentFrequencies) {
+        this.documentCount = documentCount;
+        this.totalLength = totalLength;
+        this.documentFrequencies = documentFrequencies;
+    }
+
+    /**
+     * Sums the statistics of the parts of a collection.
+     *
+     * @param parts {@link List} of {@link CollectionStatistics} The statistics of the parts, for the same query
+     * @return {@link CollectionStatistics} The statistics of the collection
+     */
+    static CollectionStatistics sum(final List<CollectionStatistics> parts) {
+        int documentCount = 0;
+        long totalLength = 0;
+        final int[] documentFrequencies = new int[parts.isEmpty() ? 0 : parts.get(0).documentFrequencies.length];
+
+        for (CollectionStatistics part : parts) {
+            documentCount += part.documentCount;
+            totalLength += part.totalLength;
+
+            for (int i = 0; i < documentFrequencies.length; i++) {
+                documentFrequencies[i] += part.documentFrequencies[i];
+            }
+        }
+
+        return new CollectionStatistics(documentCount, totalLength, documentFrequencies);
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Get a view of the index of a part of the collection reporting the number of files and terms of the collection.
+     *
+     * @param index {@link TermIndex} The index of the part
+     * @return {@link TermIndex} The view
+     */
+    TermIndex apply(final TermIndex index) {
+        return new TermIndex() {
+            @Override
+            public int getDocumentCount() {
+                return documentCount;
+            }
+
+            @Override
+            public int getDocumentLength(final int documentId) {
+                return index.getDocumentLength(documentId);
+            }
+
+            @Override
+            public long getTotalLength() {
+                return totalLength;
+            }
+
+            @Override
+            public boolean hasPositions() {
+                return index.hasPositions();
+            }
+
+            @Override
+            public Iterable<String> getTerms() {
+                return index.getTerms();
+            }
+
+            @Override
+            public Iterable<String> getTerms(final String prefix) {
+                return index.getTerms(prefix);
+            }
+
+            @Override
+            public void forEachTerm(final TermVisitor visitor) {
+                index.forEachTerm(visitor);
+            }
+
+            @Override
+            public PostingsList getPostings(final String term) {
+                return index.getPostings(term);
+            }
+
+            @Override
+            public PostingsList getPostings(final int ordinal) {
+                return index.getPostings(ordinal);
+            }
+        };
+    }
+
+    /**
+     * Get views of the postings of the scored clauses in a part of the collection reporting the number of files of the
+     * collection every clause occurs in. A clause found in no file of the part stays {@code null}.
+     *
+     * @param postings Array of {@link PostingsList} The postings of the scored clauses in the part
+     * @return Array of {@link PostingsList} The views
+     */
+    PostingsList[] apply(final PostingsList[] postings) {
+        final PostingsList[] views = new PostingsList[postings.length];
+
+        for (int i = 0; i < postings.length; i++) {
+            final PostingsList list = postings[i];
+            final int size = documentFrequencies[i];
+
+            views[i] = list == null ? null : new PostingsList() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean hasPositions() {
+                    return list.hasPositions();
+                }
+
+                @Override
+                public int getMaxFrequency() {
+                    return list.getMaxFrequency();
+                }
+
+                @Override
+                public int getMinDocumentLength() {
+                    return list.getMinDocumentLength();
+                }
+
+                @Override
+                public PostingsCursor cursor() {
+                    return list.cursor();
+                }
+            };
+        }
+
+        return views;
+    }
+}
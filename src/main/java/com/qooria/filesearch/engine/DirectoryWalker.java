@@ -0,0 +1,234 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.dto.IndexedFile;
+import com.qooria.filesearch.common.SearchUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Walks a directory tree and reads and tokenizes the files a {@link FileSelector} selects, through their
+ * {@link Extractor}. Files are streamed through a {@link FileTokenizer} unless their content is retained, in which case
+ * it is read whole.
+ * <p>
+ * With more than one indexing thread, subdirectories are listed by a work-stealing {@link ForkJoinPool} and files are
+ * read and tokenized by the same bounded pool, a limited number of files ahead of the consumer. Either way, files are
+ * handed to the consumer one at a time, in the same sorted depth-first order.
+ */
+final class DirectoryWalker {
+    private static final int FILES_AHEAD_PER_THREAD = 4;
+    private final SearchOption options;
+    private final FileTokenizer tokenizer;
+    private final SearchMetrics metrics;
+
+    /**
+     * Constructor to initialize search option field.
+     *
+     * @param options {@link SearchOption} Search options
+     */
+    DirectoryWalker(final SearchOption options) {
+        this(options, new SearchMetrics(null, false));
+    }
+
+    /**
+     * Constructor to initialize search option field and the metrics counting the files that fail to be read.
+     *
+     * @param options {@link SearchOption} Search options
+     * @param metrics {@link SearchMetrics} The metrics of the engine
+     */
+    DirectoryWalker(final SearchOption options, final SearchMetrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
+        this.tokenizer = new FileTokenizer(options.isCaseSensitive(), FileTokenizer.CHUNK_SIZE, options.getMappedReadThreshold(), metrics);
+    }
+
+    /**
+     * Walks a directory and passes every selected file in it and its subdirectories to a consumer.
+     *
+     * @param directory {@link Path} The directory
+     * @param consumer  {@link Consumer} of {@link TokenizedFile} The consumer, always called on the calling thread
+     */
+    void walk(final Path directory, final Consumer<TokenizedFile> consumer) {
+        walk(directory, file -> null, consumer);
+    }
+
+    /**
+     * Walks a directory and passes every selected file in it and its subdirectories to a consumer, without reading the
+     * files that are already indexed and unchanged. Those are passed without terms.
+     *
+     * @param directory      {@link Path} The directory
+     * @param unchangedFiles {@link Function} returning the up-to-date {@link IndexedFile} of a file, or {@code null} if
+     *                       the file has to be read. It may be called from several threads at once
+     * @param consumer       {@link Consumer} of {@link TokenizedFile} The consumer, always called on the calling thread
+     */
+    void walk(final Path directory, final Function<File, IndexedFile> unchangedFiles, final Consumer<TokenizedFile> consumer) {
+        final int threads = options.getIndexingThreads();
+
+        if (threads < 2) {
+            walkSequentially(directory, new FileSelector(options, directory, metrics), unchangedFiles, consumer);
+            return;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            final List<SelectedFile> files = pool.invoke(new ListingTask(directory, new FileSelector(options, directory, metrics)));
+            final Deque<ForkJoinTask<TokenizedFile>> pending = new ArrayDeque<>();
+
+            for (SelectedFile file : files) {
+                if (pending.size() == threads * FILES_AHEAD_PER_THREAD) {
+                    consumer.accept(pending.poll().join());
+                }
+
+                pending.add(pool.submit(() -> tokenize(file.path, file.extractor, unchangedFiles)));
+            }
+
+            while (!pending.isEmpty()) {
+                consumer.accept(pending.poll().join());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void walkSequentially(final Path directory, final FileSelector selector, final Function<File, IndexedFile> unchangedFiles,
+                                  final Consumer<TokenizedFile> consumer) {
+        for (Path path : list(directory)) {
+            if (Files.isDirectory(path)) {
+                walkSequentially(path, selector, unchangedFiles, consumer);
+            } else {
+                Extractor extractor = selector.select(path);
+
+                if (extractor != null) {
+                    consumer.accept(tokenize(path, extractor, unchangedFiles));
+                }
+            }
+        }
+    }
+
+    private TokenizedFile tokenize(final Path path, final Extractor extractor, final Function<File, IndexedFile> unchangedFiles) {
+        File file = path.toFile();
+        IndexedFile unchangedFile = unchangedFiles.apply(file);
+
+        if (unchangedFile != null) {
+            return new TokenizedFile(unchangedFile, null);
+        }
+
+        long lastModified = file.lastModified();
+        long size = file.length();
+
+        if (!options.isRetainContent()) {
+            IndexedFile indexedFile = new IndexedFile(file.getAbsolutePath(), null, lastModified, size);
+            return options.isIndexPositions() ? new TokenizedFile(indexedFile, null, tokenizer.findPositions(path, extractor))
+                    : new TokenizedFile(indexedFile, tokenizer.countTerms(path, extractor));
+        }
+
+        String content = extractor == Extractor.TEXT ? SearchUtil.readFileContent(file) : readContent(path, extractor);
+        content = options.isCaseSensitive() ? content : SearchUtil.sanitize(content, false);
+        IndexedFile indexedFile = new IndexedFile(file.getAbsolutePath(), content, lastModified, size);
+        return options.isIndexPositions() ? new TokenizedFile(indexedFile, null, InvertedIndex.findPositions(content))
+                : new TokenizedFile(indexedFile, InvertedIndex.countTerms(content));
+    }
+
+    private String readContent(final Path path, final Extractor extractor) {
+        try {
+            return SearchUtil.readContent(extractor.open(path));
+        } catch (IOException e) {
+            e.printStackTrace();
+            metrics.recordFailure();
+            return "";
+        }
+    }
+
+    /**
+     * Lists a directory, sorted so that file ids, and with them the rank of tied results, do not depend on the file
+     * system.
+     */
+    private List<Path> list(final Path directory) {
+        List<Path> paths = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(paths::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+            metrics.recordFailure();
+        }
+
+        paths.sort(Comparator.naturalOrder());
+        return paths;
+    }
+
+    /**
+     * File selected for indexing, with its extractor.
+     */
+    private static final class SelectedFile {
+        private final Path path;
+        private final Extractor extractor;
+
+        private SelectedFile(final Path path, final Extractor extractor) {
+            this.path = path;
+            this.extractor = extractor;
+        }
+    }
+
+    /**
+     * Lists the selected files of a directory tree, forking a subtask per subdirectory.
+     */
+    private final class ListingTask extends RecursiveTask<List<SelectedFile>> {
+        private static final long serialVersionUID = 1L;
+        private final Path directory;
+        private final FileSelector selector;
+
+        private ListingTask(final Path directory, final FileSelector selector) {
+            this.directory = directory;
+            this.selector = selector;
+        }
+
+        @Override
+        protected List<SelectedFile> compute() {
+            final List<Path> paths = list(directory);
+            final boolean[] isDirectory = new boolean[paths.size()];
+            final List<ListingTask> subtasks = new ArrayList<>();
+
+            for (int i = 0; i < paths.size(); i++) {
+                isDirectory[i] = Files.isDirectory(paths.get(i));
+
+                if (isDirectory[i]) {
+                    ListingTask subtask = new ListingTask(paths.get(i), selector);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                }
+            }
+
+            final List<SelectedFile> files = new ArrayList<>();
+            int subtask = 0;
+
+            for (int i = 0; i < paths.size(); i++) {
+                if (isDirectory[i]) {
+                    files.addAll(subtasks.get(subtask++).join());
+                } else {
+                    Extractor extractor = selector.select(paths.get(i));
+
+                    if (extractor != null) {
+                        files.add(new SelectedFile(paths.get(i), extractor));
+                    }
+                }
+            }
+
+            return files;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.qooria.filesearch.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the index of a directory up to date by following its changes through a {@link WatchService}.
+ * <p>
+ * Changes are collected until the directory has been quiet for a short while, then the engine is brought up to date
+ * with {@link SearchEngine#updateDirectory(String)} on a background thread, so only the changed files are read again.
+ */
+public final class DirectoryWatcher implements Closeable {
+    private static final long QUIET_PERIOD_MILLIS = 200;
+    private final SearchEngine engine;
+    private final Path directory;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Constructor to watch a directory indexed by an engine.
+     *
+     * @param engine    {@link SearchEngine} The engine to keep up to date
+     * @param directory {@link String} The indexed directory
+     * @throws IOException if the directory cannot be watched
+     */
+    public DirectoryWatcher(final SearchEngine engine, final String directory) throws IOException {
+        this.engine = engine;
+        this.directory = Paths.get(directory).toAbsolutePath();
+        this.watchService = this.directory.getFileSystem().newWatchService();
+        this.thread = new Thread(this::watch, "directory-watcher");
+        this.thread.setDaemon(true);
+        registerDirectories();
+    }
+
+    /**
+     * Starts following the changes of the directory.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops following the changes of the directory.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+
+                do {
+                    key.pollEvents();
+                    key.reset();
+                    key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                try {
+                    registerDirectories();
+                    engine.updateDirectory(directory.toString());
+                } catch (ClosedWatchServiceException e) {
+                    throw e;
+                } catch (IOException | RuntimeException e) {
+                    // a failed update must not stop the watch: the next change updates the index again
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registers the directory and all its subdirectories, as a {@link WatchService} only reports changes of the direct
+     * entries of a directory. Registering a directory again has no effect.
+     */
+    private void registerDirectories() throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes) throws IOException {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
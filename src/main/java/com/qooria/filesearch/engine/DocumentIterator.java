@@ -0,0 +1,37 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Forward-only iterator over the ids of the files matching a Boolean query or one of its parts, in ascending order. An
+ * iterator starts before the first file, with a file id of -1, and ends on {@link PostingsCursor#NO_MORE_DOCUMENTS}.
+ */
+interface DocumentIterator {
+
+    /**
+     * Get the id of the current file.
+     *
+     * @return The file id
+     */
+    int documentId();
+
+    /**
+     * Moves to the next file.
+     *
+     * @return The id of the next file, or {@link PostingsCursor#NO_MORE_DOCUMENTS}
+     */
+    int next();
+
+    /**
+     * Moves to the first file whose id is at least a target. The iterator does not move if it is already there.
+     *
+     * @param target The file id to reach
+     * @return The id of the file reached, or {@link PostingsCursor#NO_MORE_DOCUMENTS}
+     */
+    int advance(int target);
+
+    /**
+     * Get an upper bound of the number of files the iterator yields, by which intersections order their parts.
+     *
+     * @return The cost of the iterator
+     */
+    long cost();
+}
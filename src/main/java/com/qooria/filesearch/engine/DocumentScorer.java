@@ -0,0 +1,52 @@
+package com.qooria.filesearch.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Ranks the files matching one search, created by {@link Scorer#newDocumentScorer(TermIndex, PostingsList[])}. The
+ * matched files are ranked once each, in ascending id order, on the thread running the search.
+ */
+public interface DocumentScorer {
+
+    /**
+     * Ranks a matched file.
+     *
+     * @param documentId  The file id
+     * @param frequencies The frequency of every search word in the file, in word order
+     * @return The rank of the file, higher ranks first
+     */
+    double rank(int documentId, int[] frequencies);
+
+    /**
+     * Get whether ranks are computed exactly, in which case the matched files are ranked with
+     * {@link #rankExactly(int, int[])} instead of {@link #rank(int, int[])}.
+     *
+     * @return {@code true} if ranks are exact, otherwise {@code false}
+     */
+    default boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Ranks a matched file in exact arithmetic.
+     *
+     * @param documentId  The file id
+     * @param frequencies The frequency of every search word in the file, in word order
+     * @return {@link BigDecimal} The rank of the file, higher ranks first
+     */
+    default BigDecimal rankExactly(final int documentId, final int[] frequencies) {
+        return BigDecimal.valueOf(rank(documentId, frequencies));
+    }
+
+    /**
+     * Get an upper bound of the part of the rank of any file due to one search word. The search stops early once the
+     * bounds of the words that may still be found cannot beat the worst of the best ranked files. Ranks that are not
+     * sums over the words must keep the default.
+     *
+     * @param word The position of the search word
+     * @return The bound, positive infinity if there is none
+     */
+    default double getMaxRank(final int word) {
+        return Double.POSITIVE_INFINITY;
+    }
+}
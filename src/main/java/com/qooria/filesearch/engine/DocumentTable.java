@@ -0,0 +1,83 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.dto.IndexedFile;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read access to the indexed files by file id, the dense ids the postings of a {@link TermIndex} refer to.
+ */
+public interface DocumentTable {
+
+    /**
+     * Get the number of indexed files.
+     *
+     * @return The number of indexed files
+     */
+    int getDocumentCount();
+
+    /**
+     * Get the path of an indexed file.
+     *
+     * @param documentId The file id
+     * @return {@link String} The absolute file path
+     */
+    String getPath(int documentId);
+
+    /**
+     * Get the content of an indexed file.
+     *
+     * @param documentId The file id
+     * @return {@link String} The file content, or {@code null} if it is not retained
+     */
+    String getContent(int documentId);
+
+    /**
+     * Get the last modification time of an indexed file, as it was when the file was read.
+     *
+     * @param documentId The file id
+     * @return The last modification time in milliseconds
+     */
+    long getLastModified(int documentId);
+
+    /**
+     * Get the size of an indexed file, as it was when the file was read.
+     *
+     * @param documentId The file id
+     * @return The size in bytes
+     */
+    long getSize(int documentId);
+
+    /**
+     * Get an indexed file.
+     *
+     * @param documentId The file id
+     * @return {@link IndexedFile} A new copy of the file
+     */
+    default IndexedFile getFile(final int documentId) {
+        return new IndexedFile(getPath(documentId), getContent(documentId), getLastModified(documentId), getSize(documentId));
+    }
+
+    /**
+     * Get the indexed files. The returned list is a view that creates the files as they are read.
+     *
+     * @return {@link List} of {@link IndexedFile} The indexed files, by file id
+     */
+    default List<IndexedFile> getFiles() {
+        return new AbstractList<IndexedFile>() {
+            @Override
+            public IndexedFile get(final int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException(String.valueOf(index));
+                }
+                return getFile(index);
+            }
+
+            @Override
+            public int size() {
+                return getDocumentCount();
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.qooria.filesearch.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Default ranking: every word found in a file adds its weight to the rank, plus its frequency times its emphasis. The
+ * emphasis of a word starts from that of the previous word, or its own for the first word, and is multiplied by the
+ * damping factor {@code 0.85 / fileCount} every time the word is found, so it carries over from one file to the next
+ * and depends on the order of the words. File lengths are not taken into account.
+ * <p>
+ * Files are ranked in exact {@link BigDecimal} arithmetic by the scorer of
+ * {@link #newExactDocumentScorer(TermIndex, PostingsList[])}, unless fast ranking is selected with
+ * {@link SearchOption.Builder#withFastRanking(boolean)}; the scorer of
+ * {@link #newDocumentScorer(TermIndex, PostingsList[])} then ranks in {@code double} arithmetic. The emphasis of a
+ * word is {@code 0.1 * damping^n}, where {@code n} counts the matches chained so far; it is kept as the exponent
+ * {@code n}, and the powers are computed once per search. Ranks agree with the exact ones to a relative error below
+ * {@link SearchOption#FAST_RANKING_TOLERANCE}, and emphases too small for a {@code double} count as 0.
+ */
+public final class EmphasisScorer implements Scorer {
+    static final int WEIGHT_FACTOR = 100;
+    static final BigDecimal INITIAL_FILE_RANK = BigDecimal.valueOf(0.25);
+    static final BigDecimal INITIAL_DAMPING_FACTOR = BigDecimal.valueOf(0.85);
+    static final BigDecimal INITIAL_EMPHASIS_FACTOR = BigDecimal.valueOf(0.1);
+
+    @Override
+    public DocumentScorer newDocumentScorer(final TermIndex index, final PostingsList[] postings) {
+        final int weight = WEIGHT_FACTOR / postings.length;
+        final double dampingFactor = getDampingFactor(index.getDocumentCount()).doubleValue();
+        final int[] exponents = new int[postings.length];
+        final double[][] emphases = {{INITIAL_EMPHASIS_FACTOR.doubleValue()}};
+
+        return (documentId, frequencies) -> {
+            double rank = INITIAL_FILE_RANK.doubleValue();
+
+            for (int i = 0; i < frequencies.length; i++) {
+                if (frequencies[i] > 0) {
+                    final int exponent = exponents[i == 0 ? 0 : i - 1] + 1;
+
+                    if (exponent == emphases[0].length && emphases[0][exponent - 1] != 0) {
+                        emphases[0] = growPowers(emphases[0], dampingFactor);
+                    }
+
+                    // The powers stop growing once they reach 0, larger exponents having an emphasis of 0 too.
+                    rank += (exponent < emphases[0].length ? emphases[0][exponent] : 0) * frequencies[i] + weight;
+                    exponents[i] = Math.min(exponent, emphases[0].length);
+                }
+            }
+
+            return rank;
+        };
+    }
+
+    @Override
+    public DocumentScorer newExactDocumentScorer(final TermIndex index, final PostingsList[] postings) {
+        final BigDecimal weight = BigDecimal.valueOf(WEIGHT_FACTOR / postings.length);
+        final BigDecimal dampingFactor = getDampingFactor(index.getDocumentCount());
+        final BigDecimal[] emphases = new BigDecimal[postings.length];
+
+        return new DocumentScorer() {
+            @Override
+            public double rank(final int documentId, final int[] frequencies) {
+                return rankExactly(documentId, frequencies).doubleValue();
+            }
+
+            @Override
+            public boolean isExact() {
+                return true;
+            }
+
+            @Override
+            public BigDecimal rankExactly(final int documentId, final int[] frequencies) {
+                BigDecimal rank = INITIAL_FILE_RANK;
+
+                for (int i = 0; i < frequencies.length; i++) {
+                    if (frequencies[i] > 0) {
+                        final BigDecimal previous = emphases[i == 0 ? 0 : i - 1];
+                        final BigDecimal emphasis = (previous == null ? INITIAL_EMPHASIS_FACTOR : previous)
+                                .multiply(dampingFactor);
+
+                        rank = rank.add(emphasis.multiply(BigDecimal.valueOf(frequencies[i]))).add(weight);
+                        emphases[i] = emphasis;
+                    }
+                }
+
+                return rank;
+            }
+        };
+    }
+
+    /**
+     * Get the damping factor of an index, {@code 0.85 / fileCount} rounded up to two decimals.
+     *
+     * @param fileCount The number of indexed files
+     * @return {@link BigDecimal} The damping factor
+     */
+    static BigDecimal getDampingFactor(final int fileCount) {
+        return fileCount == 0 ? BigDecimal.ZERO : INITIAL_DAMPING_FACTOR.divide(BigDecimal.valueOf(fileCount), RoundingMode.UP);
+    }
+
+    /**
+     * Doubles the powers of the damping factor computed so far, stopping after the first power that is 0.
+     */
+    private static double[] growPowers(final double[] powers, final double dampingFactor) {
+        final double[] grown = new double[powers.length * 2];
+        System.arraycopy(powers, 0, grown, 0, powers.length);
+
+        for (int n = powers.length; n < grown.length; n++) {
+            grown[n] = grown[n - 1] * dampingFactor;
+
+            if (grown[n] == 0) {
+                return Arrays.copyOf(grown, n + 1);
+            }
+        }
+
+        return grown;
+    }
+}
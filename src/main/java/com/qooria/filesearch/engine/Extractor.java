@@ -0,0 +1,37 @@
+package com.qooria.filesearch.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Extracts the text of the indexed files of a type, selected by file name with
+ * {@link SearchOption.Builder#withExtractor(String, Extractor)} or by leading bytes with
+ * {@link SearchOption.Builder#withExtractor(byte[], Extractor)}.
+ * <p>
+ * The text is streamed into the index as it is extracted, so an extractor should decode its file incrementally rather
+ * than into memory or temporary files. Extractors must be safe for concurrent use.
+ */
+@FunctionalInterface
+public interface Extractor {
+    /**
+     * Extractor of UTF-8 text files. Files it selects are read straight from the file system, and mapped into memory
+     * from {@link SearchOption#getMappedReadThreshold()}.
+     */
+    Extractor TEXT = Files::newInputStream;
+    /**
+     * Extractor of gzip-compressed UTF-8 text files, such as rotated logs, decompressed as they are read.
+     */
+    Extractor GZIP = file -> new GZIPInputStream(Files.newInputStream(file), FileTokenizer.CHUNK_SIZE);
+
+    /**
+     * Opens the text of a file.
+     *
+     * @param file {@link Path} The file
+     * @return {@link InputStream} The text of the file, as UTF-8 bytes
+     * @throws IOException if the file cannot be read
+     */
+    InputStream open(Path file) throws IOException;
+}
@@ -0,0 +1,141 @@
+package com.qooria.filesearch.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Selects the files of a directory tree to index and their {@link Extractor}, following the patterns, extractors and
+ * size limit of the {@link SearchOption}.
+ * <p>
+ * The checks go from the cheapest to the costliest: the name patterns first, then the size of the file, and the
+ * leading bytes of the file last, only for files no name pattern selects an extractor for. A skipped file is therefore
+ * never opened unless it has to be sniffed.
+ */
+final class FileSelector {
+    private final Path directory;
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final List<PathMatcher> extractorPatterns = new ArrayList<>();
+    private final List<Extractor> extractors = new ArrayList<>();
+    private final List<ByteBuffer> leadingBytes = new ArrayList<>();
+    private final List<Extractor> sniffedExtractors = new ArrayList<>();
+    private final long maxFileSize;
+    private final int sniffedLength;
+    private final SearchMetrics metrics;
+
+    /**
+     * Constructor to initialize the selection of the files of a directory.
+     *
+     * @param options   {@link SearchOption} Search options
+     * @param directory {@link Path} The indexed directory, which patterns with {@code /} are relative to
+     * @param metrics   {@link SearchMetrics} The metrics counting the files that fail to be read
+     */
+    FileSelector(final SearchOption options, final Path directory, final SearchMetrics metrics) {
+        final FileSystem fileSystem = directory.getFileSystem();
+        this.directory = directory;
+        this.metrics = metrics;
+        this.maxFileSize = options.getMaxFileSize();
+
+        options.getIncludePatterns().forEach(pattern -> includes.add(matcher(fileSystem, pattern)));
+        options.getExcludePatterns().forEach(pattern -> excludes.add(matcher(fileSystem, pattern)));
+
+        for (Map.Entry<String, Extractor> entry : options.getExtractors().entrySet()) {
+            extractorPatterns.add(matcher(fileSystem, entry.getKey()));
+            extractors.add(entry.getValue());
+        }
+
+        int length = 0;
+        for (Map.Entry<ByteBuffer, Extractor> entry : options.getSniffedExtractors().entrySet()) {
+            leadingBytes.add(entry.getKey());
+            sniffedExtractors.add(entry.getValue());
+            length = Math.max(length, entry.getKey().remaining());
+        }
+        this.sniffedLength = length;
+    }
+
+    /**
+     * Selects the extractor of a file.
+     *
+     * @param file {@link Path} The file, in the indexed directory
+     * @return {@link Extractor} The extractor of the file, or {@code null} if the file is not indexed
+     */
+    Extractor select(final Path file) {
+        final Path relative = directory.relativize(file);
+        final Path relativePath = relative.getFileSystem().getPath(relative.toString().toLowerCase(Locale.ROOT));
+
+        if ((!includes.isEmpty() && !matchesAny(includes, relativePath)) || matchesAny(excludes, relativePath)) {
+            return null;
+        }
+
+        Extractor extractor = null;
+        for (int i = 0; i < extractors.size() && extractor == null; i++) {
+            if (extractorPatterns.get(i).matches(relativePath)) {
+                extractor = extractors.get(i);
+            }
+        }
+
+        if (extractor == null && sniffedLength == 0) {
+            return null;
+        }
+
+        try {
+            if (maxFileSize < Long.MAX_VALUE && Files.size(file) > maxFileSize) {
+                return null;
+            }
+            return extractor != null ? extractor : sniff(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            metrics.recordFailure();
+            return null;
+        }
+    }
+
+    private Extractor sniff(final Path file) throws IOException {
+        final byte[] bytes = new byte[sniffedLength];
+        int length = 0;
+
+        try (InputStream input = Files.newInputStream(file)) {
+            for (int read = 0; read >= 0 && length < bytes.length; read = input.read(bytes, length, bytes.length - length)) {
+                length += read;
+            }
+        }
+
+        for (int i = 0; i < leadingBytes.size(); i++) {
+            final ByteBuffer expected = leadingBytes.get(i);
+
+            if (expected.remaining() <= length && expected.equals(ByteBuffer.wrap(bytes, 0, expected.remaining()))) {
+                return sniffedExtractors.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean matchesAny(final List<PathMatcher> matchers, final Path relativePath) {
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(relativePath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a lowercased glob pattern into a matcher of lowercased relative paths, which matches the file name
+     * unless the pattern has a {@code /}.
+     */
+    private static PathMatcher matcher(final FileSystem fileSystem, final String pattern) {
+        final String glob = pattern.toLowerCase(Locale.ROOT);
+        final PathMatcher matcher = fileSystem.getPathMatcher("glob:" + glob);
+        return glob.contains("/") ? matcher : path -> matcher.matches(path.getFileName());
+    }
+}
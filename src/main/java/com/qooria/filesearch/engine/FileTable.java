@@ -0,0 +1,198 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.dto.IndexedFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Immutable {@link DocumentTable} held on the heap in a few arrays instead of an object and a path string per file.
+ * <p>
+ * Paths are front coded in blocks of {@value #BLOCK_SIZE}, like the terms of a {@link TermDictionary}: the first path
+ * of a block is stored whole, every other path as the length of the prefix it shares with the previous path and its
+ * remaining bytes, lengths being variable-byte integers. Files are numbered in the order a directory walk lists them,
+ * so consecutive paths share their directories and mostly differ by their names. Decoding a path scans at most one
+ * block, which is only done for the files returned by a search. Modification times and sizes are primitive arrays,
+ * and contents are only held when they are retained.
+ */
+final class FileTable implements DocumentTable {
+    static final FileTable EMPTY = builder().build();
+    private static final int BLOCK_SIZE = 16;
+    private final byte[] paths;
+    private final int[] blockOffsets;
+    private final long[] lastModified;
+    private final long[] sizes;
+    private final String[] contents;
+    private final int documentCount;
+
+    private FileTable(final Builder builder) {
+        this.documentCount = builder.documentCount;
+        this.paths = Arrays.copyOf(builder.paths, builder.length);
+        this.blockOffsets = Arrays.copyOf(builder.blockOffsets, (documentCount + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        this.lastModified = Arrays.copyOf(builder.lastModified, documentCount);
+        this.sizes = Arrays.copyOf(builder.sizes, documentCount);
+        this.contents = builder.contents == null ? null : Arrays.copyOf(builder.contents, documentCount);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    @Override
+    public String getPath(final int documentId) {
+        checkDocumentId(documentId);
+
+        byte[] path = new byte[64];
+        int length = 0;
+        int position = blockOffsets[documentId / BLOCK_SIZE];
+
+        for (int i = documentId - documentId % BLOCK_SIZE; i <= documentId; i++) {
+            final int shared = VarInts.read(paths, position);
+            position += VarInts.length(shared);
+            final int suffix = VarInts.read(paths, position);
+            position += VarInts.length(suffix);
+
+            if (path.length < shared + suffix) {
+                path = Arrays.copyOf(path, Math.max(path.length * 2, shared + suffix));
+            }
+            System.arraycopy(paths, position, path, shared, suffix);
+            position += suffix;
+            length = shared + suffix;
+        }
+
+        return new String(path, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getContent(final int documentId) {
+        checkDocumentId(documentId);
+        return contents == null ? null : contents[documentId];
+    }
+
+    @Override
+    public long getLastModified(final int documentId) {
+        checkDocumentId(documentId);
+        return lastModified[documentId];
+    }
+
+    @Override
+    public long getSize(final int documentId) {
+        checkDocumentId(documentId);
+        return sizes[documentId];
+    }
+
+    private void checkDocumentId(final int documentId) {
+        if (documentId < 0 || documentId >= documentCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(documentId));
+        }
+    }
+
+    /**
+     * Builder of a file table, numbering the files in the order they are added.
+     */
+    static final class Builder {
+        private byte[] paths = new byte[1024];
+        private int[] blockOffsets = new int[16];
+        private long[] lastModified = new long[16];
+        private long[] sizes = new long[16];
+        private String[] contents;
+        private byte[] previousPath = new byte[0];
+        private int length;
+        private int documentCount;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a file.
+         *
+         * @param file {@link IndexedFile} The file
+         * @return The id of the file
+         */
+        int add(final IndexedFile file) {
+            return add(file.getPath(), file.getContent(), file.getLastModified(), file.getSize());
+        }
+
+        /**
+         * Adds a file of another table.
+         *
+         * @param table      {@link DocumentTable} The table
+         * @param documentId The id of the file in the table
+         * @return The id of the file in this table
+         */
+        int add(final DocumentTable table, final int documentId) {
+            return add(table.getPath(documentId), table.getContent(documentId), table.getLastModified(documentId), table.getSize(documentId));
+        }
+
+        /**
+         * Adds the files of another table, with the same ids if this builder is empty.
+         *
+         * @param table {@link DocumentTable} The table
+         */
+        void addAll(final DocumentTable table) {
+            for (int i = 0; i < table.getDocumentCount(); i++) {
+                add(table, i);
+            }
+        }
+
+        /**
+         * Get the number of files added.
+         *
+         * @return The number of files
+         */
+        int size() {
+            return documentCount;
+        }
+
+        FileTable build() {
+            return new FileTable(this);
+        }
+
+        private int add(final String path, final String content, final long modified, final long size) {
+            final byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+            final int documentId = documentCount++;
+            final int shared = documentId % BLOCK_SIZE == 0 ? 0 : VarInts.sharedPrefix(previousPath, bytes);
+            final int suffix = bytes.length - shared;
+
+            if (documentId == lastModified.length) {
+                lastModified = Arrays.copyOf(lastModified, documentId * 2);
+                sizes = Arrays.copyOf(sizes, documentId * 2);
+            }
+            if (documentId % BLOCK_SIZE == 0) {
+                if (documentId / BLOCK_SIZE == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+                }
+                blockOffsets[documentId / BLOCK_SIZE] = length;
+            }
+            if (paths.length - length < suffix + 10) {
+                paths = Arrays.copyOf(paths, Math.max(paths.length * 2, length + suffix + 10));
+            }
+
+            length = VarInts.write(paths, length, shared);
+            length = VarInts.write(paths, length, suffix);
+            System.arraycopy(bytes, shared, paths, length, suffix);
+            length += suffix;
+            previousPath = bytes;
+
+            lastModified[documentId] = modified;
+            sizes[documentId] = size;
+
+            if (content != null && contents == null) {
+                contents = new String[lastModified.length];
+            }
+            if (contents != null) {
+                if (contents.length < lastModified.length) {
+                    contents = Arrays.copyOf(contents, lastModified.length);
+                }
+                contents[documentId] = content;
+            }
+
+            return documentId;
+        }
+    }
+}
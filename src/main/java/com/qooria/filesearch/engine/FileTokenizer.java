@@ -0,0 +1,220 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.Tokenizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Counts the terms of a file, or finds their positions, while reading it in fixed-size chunks, so that memory does not
+ * grow with the file size.
+ * <p>
+ * Bytes are decoded as UTF-8 incrementally, malformed input being replaced, and fed to a {@link Tokenizer}, so the
+ * terms are the same as {@link InvertedIndex#countTerms(String)} finds in the file content as indexed. When not case
+ * sensitive, that content is sanitized, line breaks included.
+ * <p>
+ * Files of at least a threshold size are instead mapped into memory with {@link FileChannel#map}, in windows of up to
+ * {@value #MAPPED_WINDOW_SIZE} bytes, and tokenized straight from the mapped bytes without copying or decoding them.
+ * ASCII bytes are the characters they encode. Terms are made of ASCII letters and digits only, and UTF-8 never uses
+ * ASCII bytes inside a multi-byte sequence, so any run of other bytes, well formed or not, decodes to characters that
+ * are all outside terms, and acts as a single one of them; the terms are the same as through the decoder.
+ * <p>
+ * Files of other types are read through their {@link Extractor}, whose stream is decoded the same way.
+ */
+final class FileTokenizer {
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAPPED_WINDOW_SIZE = 1 << 30;
+    private static final char NON_ASCII = '\ufffd';
+    private final boolean caseSensitive;
+    private final int chunkSize;
+    private final long mappedReadThreshold;
+    private final SearchMetrics metrics;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param caseSensitive Case sensitivity flag
+     */
+    FileTokenizer(final boolean caseSensitive) {
+        this(caseSensitive, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor to initialize fields with a given chunk size.
+     *
+     * @param caseSensitive Case sensitivity flag
+     * @param chunkSize     The number of bytes read at a time
+     */
+    FileTokenizer(final boolean caseSensitive, final int chunkSize) {
+        this(caseSensitive, chunkSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructor to initialize fields with a given chunk size and the size from which files are mapped.
+     *
+     * @param caseSensitive       Case sensitivity flag
+     * @param chunkSize           The number of bytes read at a time
+     * @param mappedReadThreshold The size in bytes from which files are mapped into memory instead of read
+     */
+    FileTokenizer(final boolean caseSensitive, final int chunkSize, final long mappedReadThreshold) {
+        this(caseSensitive, chunkSize, mappedReadThreshold, new SearchMetrics(null, false));
+    }
+
+    /**
+     * Constructor to initialize fields with a given chunk size, the size from which files are mapped and the metrics
+     * counting the files that fail to be read.
+     *
+     * @param caseSensitive       Case sensitivity flag
+     * @param chunkSize           The number of bytes read at a time
+     * @param mappedReadThreshold The size in bytes from which files are mapped into memory instead of read
+     * @param metrics             {@link SearchMetrics} The metrics of the engine
+     */
+    FileTokenizer(final boolean caseSensitive, final int chunkSize, final long mappedReadThreshold, final SearchMetrics metrics) {
+        this.caseSensitive = caseSensitive;
+        this.chunkSize = chunkSize;
+        this.mappedReadThreshold = mappedReadThreshold;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Counts the terms of a file. If the file cannot be read, the terms read so far are returned.
+     *
+     * @param file {@link Path} The file
+     * @return {@link Map} of each term of the file to its frequency
+     */
+    Map<String, Integer> countTerms(final Path file) {
+        return countTerms(file, Extractor.TEXT);
+    }
+
+    /**
+     * Counts the terms of a file extracted by an extractor. If the file cannot be read, the terms read so far are
+     * returned.
+     *
+     * @param file      {@link Path} The file
+     * @param extractor {@link Extractor} The extractor of the file
+     * @return {@link Map} of each term of the file to its frequency
+     */
+    Map<String, Integer> countTerms(final Path file, final Extractor extractor) {
+        final Tokenizer tokenizer = new Tokenizer(caseSensitive);
+        read(file, extractor, tokenizer);
+        return tokenizer.finish();
+    }
+
+    /**
+     * Finds the positions of the terms of a file. If the file cannot be read, the terms read so far are returned.
+     *
+     * @param file {@link Path} The file
+     * @return {@link Map} of each term of the file to its positions
+     */
+    Map<String, int[]> findPositions(final Path file) {
+        return findPositions(file, Extractor.TEXT);
+    }
+
+    /**
+     * Finds the positions of the terms of a file extracted by an extractor. If the file cannot be read, the terms read
+     * so far are returned.
+     *
+     * @param file      {@link Path} The file
+     * @param extractor {@link Extractor} The extractor of the file
+     * @return {@link Map} of each term of the file to its positions
+     */
+    Map<String, int[]> findPositions(final Path file, final Extractor extractor) {
+        final Tokenizer tokenizer = new Tokenizer(caseSensitive, true);
+        read(file, extractor, tokenizer);
+        return tokenizer.finishPositions();
+    }
+
+    private void read(final Path file, final Extractor extractor, final Tokenizer tokenizer) {
+        if (extractor != Extractor.TEXT) {
+            try (ReadableByteChannel channel = Channels.newChannel(extractor.open(file))) {
+                decode(channel, chunkSize, tokenizer);
+            } catch (IOException e) {
+                e.printStackTrace();
+                metrics.recordFailure();
+            }
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() >= mappedReadThreshold) {
+                readMapped(channel, tokenizer);
+            } else {
+                decode(channel, (int) Math.min(chunkSize, channel.size() + 1), tokenizer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            metrics.recordFailure();
+        }
+    }
+
+    private static void decode(final ReadableByteChannel channel, final int bufferSize, final Tokenizer tokenizer) throws IOException {
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final int capacity = Math.max(bufferSize, 8);
+        final ByteBuffer bytes = ByteBuffer.allocate(capacity);
+        final CharBuffer chars = CharBuffer.allocate(capacity);
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+            endOfInput = channel.read(bytes) < 0;
+            bytes.flip();
+
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, endOfInput);
+                consume(chars, tokenizer);
+            } while (result.isOverflow());
+
+            bytes.compact();
+        }
+
+        while (decoder.flush(chars).isOverflow()) {
+            consume(chars, tokenizer);
+        }
+        consume(chars, tokenizer);
+    }
+
+    private static void readMapped(final FileChannel channel, final Tokenizer tokenizer) throws IOException {
+        final long size = channel.size();
+        boolean isNonAscii = false;
+
+        for (long start = 0; start < size; start += MAPPED_WINDOW_SIZE) {
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAPPED_WINDOW_SIZE, size - start));
+
+            for (int i = 0; i < window.limit(); i++) {
+                final byte b = window.get(i);
+
+                if (b >= 0) {
+                    tokenizer.accept((char) b);
+                    isNonAscii = false;
+                } else if (!isNonAscii) {
+                    tokenizer.accept(NON_ASCII);
+                    isNonAscii = true;
+                }
+            }
+        }
+    }
+
+    private static void consume(final CharBuffer chars, final Tokenizer tokenizer) {
+        chars.flip();
+
+        while (chars.hasRemaining()) {
+            tokenizer.accept(chars.get());
+        }
+
+        chars.clear();
+    }
+}
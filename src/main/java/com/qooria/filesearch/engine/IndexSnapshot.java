@@ -0,0 +1,30 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Immutable pair of the indexed files and their index. The engine replaces its snapshot as a whole on every update, so
+ * a search always sees files and postings that belong together.
+ */
+final class IndexSnapshot {
+    static final IndexSnapshot EMPTY = new IndexSnapshot(FileTable.EMPTY, InvertedIndex.builder().build());
+    private final DocumentTable documents;
+    private final TermIndex index;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param documents {@link DocumentTable} The indexed files by file id, which must not change afterwards
+     * @param index     {@link TermIndex} The index of the files
+     */
+    IndexSnapshot(final DocumentTable documents, final TermIndex index) {
+        this.documents = documents;
+        this.index = index;
+    }
+
+    DocumentTable getDocuments() {
+        return documents;
+    }
+
+    TermIndex getIndex() {
+        return index;
+    }
+}
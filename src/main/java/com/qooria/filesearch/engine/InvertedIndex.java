@@ -0,0 +1,340 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.common.Tokenizer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index mapping every term of the indexed files to its {@link CompressedPostings}. Terms are kept off the heap
+ * in a {@link TermDictionary}, whose ordinals index the postings. The length of every file, in terms, is kept for
+ * length-normalized ranking. An index built with positions also holds the positions of every term in every file.
+ * <p>
+ * A term is a maximal run of ASCII letters and digits. Search words are made of the same characters, so every
+ * occurrence of a search word in a file lies inside exactly one of its terms.
+ */
+public final class InvertedIndex implements TermIndex {
+    private final TermDictionary dictionary;
+    private final CompressedPostings[] postings;
+    private final int documentCount;
+    private final int[] documentLengths;
+    private final long totalLength;
+    private final boolean hasPositions;
+
+    private InvertedIndex(final TermDictionary dictionary, final CompressedPostings[] postings, final int[] documentLengths, final boolean hasPositions) {
+        this.dictionary = dictionary;
+        this.hasPositions = hasPositions;
+        this.postings = postings;
+        this.documentCount = documentLengths.length;
+        this.documentLengths = documentLengths;
+        this.totalLength = Arrays.stream(documentLengths).asLongStream().sum();
+    }
+
+    public static Builder builder() {
+        return new Builder(false);
+    }
+
+    /**
+     * Get a builder of an index with or without positions.
+     *
+     * @param hasPositions Whether the index holds the positions of the terms
+     * @return {@link Builder} The builder
+     */
+    public static Builder builder(final boolean hasPositions) {
+        return new Builder(hasPositions);
+    }
+
+    @Override
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    @Override
+    public int getDocumentLength(final int documentId) {
+        return documentLengths[documentId];
+    }
+
+    @Override
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public boolean hasPositions() {
+        return hasPositions;
+    }
+
+    @Override
+    public List<String> getTerms() {
+        return dictionary.getTerms();
+    }
+
+    @Override
+    public List<String> getTerms(final String prefix) {
+        return dictionary.getTerms(prefix);
+    }
+
+    @Override
+    public void forEachTerm(final TermVisitor visitor) {
+        dictionary.forEachTerm(visitor);
+    }
+
+    @Override
+    public CompressedPostings getPostings(final int ordinal) {
+        return postings[ordinal];
+    }
+
+    @Override
+    public CompressedPostings getPostings(final String term) {
+        final int ordinal = dictionary.getOrdinal(term);
+        return ordinal < 0 ? null : postings[ordinal];
+    }
+
+    /**
+     * Builder class to add files to the index.
+     */
+    public static final class Builder {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Map<String, PostingsList> reused = new HashMap<>();
+        private final boolean hasPositions;
+        private int documentCount;
+        private int[] documentLengths = new int[16];
+
+        private Builder(final boolean hasPositions) {
+            this.hasPositions = hasPositions;
+        }
+
+        /**
+         * Adds a file content to the index.
+         *
+         * @param content {@link String} The file content
+         * @return The id assigned to the file
+         */
+        public int addDocument(final String content) {
+            if (!hasPositions) {
+                return addDocument(countTerms(content));
+            }
+
+            final int documentId = documentCount;
+            addDocumentPositions(documentId, findPositions(content));
+            return documentId;
+        }
+
+        /**
+         * Adds a file to the index from its already counted terms.
+         *
+         * @param frequencies {@link Map} of each term of the file to its frequency
+         * @return The id assigned to the file
+         */
+        public int addDocument(final Map<String, Integer> frequencies) {
+            final int documentId = documentCount;
+            addDocument(documentId, frequencies);
+            return documentId;
+        }
+
+        /**
+         * Adds a file to the index under a given id.
+         *
+         * @param documentId  The file id
+         * @param frequencies {@link Map} of each term of the file to its frequency
+         */
+        public void addDocument(final int documentId, final Map<String, Integer> frequencies) {
+            if (hasPositions) {
+                throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+            }
+
+            int length = 0;
+
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(documentId, entry.getValue());
+                length += entry.getValue();
+            }
+            setDocumentLength(documentId, length);
+        }
+
+        /**
+         * Adds a file to an index with positions under a given id.
+         *
+         * @param documentId The file id
+         * @param positions  {@link Map} of each term of the file to its positions, in ascending order
+         */
+        public void addDocumentPositions(final int documentId, final Map<String, int[]> positions) {
+            int length = 0;
+
+            for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new Postings(1, true)).add(documentId, entry.getValue());
+                length += entry.getValue().length;
+            }
+            setDocumentLength(documentId, length);
+        }
+
+        /**
+         * Adds the postings of another index, without reading its files again.
+         * <p>
+         * When every file kept keeps its id, only the postings of the terms occurring in a file left out are decoded;
+         * the compressed postings of the other terms are reused as they are, and only decoded again by
+         * {@link #build()} if files added later contain their term. Otherwise every postings list is renumbered.
+         *
+         * @param index       {@link TermIndex} The index to copy, which must hold positions if this index does
+         * @param documentIds The new id of each file of the index, or -1 to leave the file out
+         */
+        public void addIndex(final TermIndex index, final int[] documentIds) {
+            if (hasPositions && !index.hasPositions() && index.getDocumentCount() > 0) {
+                throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+            }
+
+            boolean isStable = index.hasPositions() == hasPositions;
+            int droppedCount = 0;
+
+            for (int i = 0; i < documentIds.length; i++) {
+                if (documentIds[i] >= 0) {
+                    setDocumentLength(documentIds[i], index.getDocumentLength(i));
+                    isStable &= documentIds[i] == i;
+                } else {
+                    droppedCount++;
+                }
+            }
+
+            final int[] droppedIds = new int[droppedCount];
+            for (int i = 0, j = 0; i < documentIds.length; i++) {
+                if (documentIds[i] < 0) {
+                    droppedIds[j++] = i;
+                }
+            }
+
+            final boolean isReusing = isStable;
+            index.forEachTerm((ordinal, bytes, length) -> {
+                final String term = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                final PostingsList source = index.getPostings(ordinal);
+
+                if (isReusing && !containsAny(source, droppedIds)) {
+                    reused.put(term, source);
+                } else {
+                    addPostings(term, source, documentIds);
+                }
+            });
+        }
+
+        public InvertedIndex build() {
+            final Set<String> terms = new HashSet<>(postings.keySet());
+            terms.addAll(reused.keySet());
+
+            final TermDictionary dictionary = TermDictionary.of(terms);
+            final CompressedPostings[] snapshot = new CompressedPostings[dictionary.size()];
+            int ordinal = 0;
+
+            for (String term : dictionary.getTerms()) {
+                final PostingsList source = reused.get(term);
+                final Postings added = postings.get(term);
+                snapshot[ordinal++] = CompressedPostings.of(added == null ? source : merge(source, added).copy(), documentLengths);
+            }
+
+            return new InvertedIndex(dictionary, snapshot, Arrays.copyOf(documentLengths, documentCount), hasPositions);
+        }
+
+        private void addPostings(final String term, final PostingsList source, final int[] documentIds) {
+            final PostingsCursor cursor = source.cursor();
+            Postings target = null;
+
+            while (cursor.next() != PostingsCursor.NO_MORE_DOCUMENTS) {
+                final int documentId = documentIds[cursor.documentId()];
+
+                if (documentId >= 0) {
+                    if (target == null) {
+                        target = postings.computeIfAbsent(term, t -> new Postings(source.size(), hasPositions));
+                    }
+                    add(target, documentId, cursor);
+                }
+            }
+        }
+
+        /**
+         * Adds the postings of files added to the index to reused postings, or returns them alone if there are none.
+         */
+        private Postings merge(final PostingsList source, final Postings added) {
+            if (source == null) {
+                return added;
+            }
+
+            final Postings merged = new Postings(source.size() + added.size(), hasPositions);
+
+            for (PostingsList list : new PostingsList[]{source, added}) {
+                final PostingsCursor cursor = list.cursor();
+                while (cursor.next() != PostingsCursor.NO_MORE_DOCUMENTS) {
+                    add(merged, cursor.documentId(), cursor);
+                }
+            }
+
+            return merged;
+        }
+
+        private void add(final Postings target, final int documentId, final PostingsCursor cursor) {
+            if (hasPositions) {
+                final int[] positions = new int[cursor.frequency()];
+                for (int i = 0; i < positions.length; i++) {
+                    positions[i] = cursor.nextPosition();
+                }
+                target.add(documentId, positions);
+            } else {
+                target.add(documentId, cursor.frequency());
+            }
+        }
+
+        private static boolean containsAny(final PostingsList postings, final int[] documentIds) {
+            final PostingsCursor cursor = postings.cursor();
+
+            for (int documentId : documentIds) {
+                final int reached = cursor.advance(documentId);
+
+                if (reached == documentId) {
+                    return true;
+                }
+                if (reached == PostingsCursor.NO_MORE_DOCUMENTS) {
+                    return false;
+                }
+            }
+
+            return false;
+        }
+
+        private void setDocumentLength(final int documentId, final int length) {
+            documentCount = Math.max(documentCount, documentId + 1);
+
+            if (documentId >= documentLengths.length) {
+                documentLengths = Arrays.copyOf(documentLengths, Math.max(documentLengths.length * 2, documentId + 1));
+            }
+            documentLengths[documentId] = length;
+        }
+    }
+
+    /**
+     * Splits a file content into terms and counts them. This does not touch any index, so it can run on any thread.
+     *
+     * @param content {@link String} The file content
+     * @return {@link Map} of each term to its frequency in the content
+     */
+    static Map<String, Integer> countTerms(final String content) {
+        final Tokenizer tokenizer = new Tokenizer(true);
+        tokenizer.accept(content);
+        return tokenizer.finish();
+    }
+
+    /**
+     * Splits a file content into terms and finds their positions. This does not touch any index, so it can run on any
+     * thread.
+     *
+     * @param content {@link String} The file content
+     * @return {@link Map} of each term to its positions in the content
+     */
+    static Map<String, int[]> findPositions(final String content) {
+        final Tokenizer tokenizer = new Tokenizer(true, true);
+        tokenizer.accept(content);
+        return tokenizer.finishPositions();
+    }
+}
@@ -0,0 +1,178 @@
+package com.qooria.filesearch.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton counting the occurrences of several keywords in one pass over a text, without allocating.
+ * <p>
+ * Occurrences may overlap, so {@code "aa"} occurs twice in {@code "aaa"}. Keywords are made of ASCII letters and
+ * digits; any other character of the text ends every partial match.
+ */
+public final class KeywordMatcher {
+    private static final int ALPHABET_SIZE = 62;
+    private static final int NO_STATE = -1;
+    private static final int ROOT = 0;
+    private final int[][] transitions;
+    private final int[][] outputs;
+
+    /**
+     * Constructor to build the automaton.
+     *
+     * @param keywords {@link List} of {@link String} The distinct keywords to count
+     */
+    public KeywordMatcher(final List<String> keywords) {
+        final List<int[]> gotos = new ArrayList<>();
+        final List<int[]> ends = new ArrayList<>();
+        gotos.add(newState());
+        ends.add(new int[0]);
+
+        for (int keyword = 0; keyword < keywords.size(); keyword++) {
+            final String word = keywords.get(keyword);
+            int state = ROOT;
+
+            for (int i = 0; i < word.length(); i++) {
+                final int symbol = symbol(word.charAt(i));
+
+                if (symbol < 0) {
+                    throw new IllegalArgumentException(word);
+                }
+
+                if (gotos.get(state)[symbol] == NO_STATE) {
+                    gotos.get(state)[symbol] = gotos.size();
+                    gotos.add(newState());
+                    ends.add(new int[0]);
+                }
+                state = gotos.get(state)[symbol];
+            }
+
+            if (state != ROOT) {
+                ends.set(state, append(ends.get(state), keyword));
+            }
+        }
+
+        this.transitions = gotos.toArray(new int[0][]);
+        this.outputs = ends.toArray(new int[0][]);
+        link();
+    }
+
+    /**
+     * Counts the occurrences of every keyword in a text.
+     *
+     * @param text   {@link CharSequence} The text to scan
+     * @param counts The count of each keyword, by position in the keyword list, to add the occurrences to
+     * @return The total number of occurrences found
+     */
+    public int count(final CharSequence text, final int[] counts) {
+        int state = ROOT;
+        int total = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            final int symbol = symbol(text.charAt(i));
+            state = symbol < 0 ? ROOT : transitions[state][symbol];
+
+            for (int keyword : outputs[state]) {
+                counts[keyword]++;
+                total++;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Counts the occurrences of every keyword in a UTF-8 text. Bytes of non-ASCII characters end every partial match,
+     * like the characters do in {@link #count(CharSequence, int[])}.
+     *
+     * @param text   The UTF-8 bytes to scan
+     * @param length The number of bytes to scan
+     * @param counts The count of each keyword, by position in the keyword list, to add the occurrences to
+     * @return The total number of occurrences found
+     */
+    public int count(final byte[] text, final int length, final int[] counts) {
+        int state = ROOT;
+        int total = 0;
+
+        for (int i = 0; i < length; i++) {
+            final int symbol = symbol((char) (text[i] & 0xff));
+            state = symbol < 0 ? ROOT : transitions[state][symbol];
+
+            for (int keyword : outputs[state]) {
+                counts[keyword]++;
+                total++;
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Turns the trie into the automaton: missing transitions follow the failure links, and every state outputs the
+     * keywords of the states its failure links lead to.
+     */
+    private void link() {
+        final int[] failures = new int[transitions.length];
+        final Deque<Integer> queue = new ArrayDeque<>();
+
+        for (int symbol = 0; symbol < ALPHABET_SIZE; symbol++) {
+            final int next = transitions[ROOT][symbol];
+
+            if (next == NO_STATE) {
+                transitions[ROOT][symbol] = ROOT;
+            } else {
+                failures[next] = ROOT;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            outputs[state] = concat(outputs[state], outputs[failures[state]]);
+
+            for (int symbol = 0; symbol < ALPHABET_SIZE; symbol++) {
+                final int next = transitions[state][symbol];
+
+                if (next == NO_STATE) {
+                    transitions[state][symbol] = transitions[failures[state]][symbol];
+                } else {
+                    failures[next] = transitions[failures[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int symbol(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return 26 + c - 'A';
+        }
+        if (c >= '0' && c <= '9') {
+            return 52 + c - '0';
+        }
+        return -1;
+    }
+
+    private static int[] newState() {
+        final int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, NO_STATE);
+        return state;
+    }
+
+    private static int[] append(final int[] values, final int value) {
+        final int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static int[] concat(final int[] first, final int[] second) {
+        final int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
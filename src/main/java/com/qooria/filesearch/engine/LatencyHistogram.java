@@ -0,0 +1,120 @@
+package com.qooria.filesearch.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds, with log-linear buckets in the manner of an HDR histogram.
+ * <p>
+ * Values below 32 have a bucket each. Above, every power of two is split into 16 buckets of equal width, so a bucket
+ * is never wider than a sixteenth of the values it counts, whatever their magnitude, and the whole range of
+ * {@code long} takes under a thousand buckets. Recording a value takes a few shifts and uncontended atomic additions.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKET_COUNT;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds, negative durations counting as 0
+     */
+    void record(final long nanos) {
+        final long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Get the number of durations recorded.
+     *
+     * @return The number of durations
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean of the durations recorded.
+     *
+     * @return The mean in nanoseconds, 0 if none is recorded
+     */
+    double getMean() {
+        final long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Get the longest duration recorded.
+     *
+     * @return The duration in nanoseconds, 0 if none is recorded
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Get a percentile of the durations recorded: the highest value of the bucket of the duration such that the given
+     * share of the durations are not longer.
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The duration in nanoseconds, 0 if none is recorded
+     */
+    long getPercentile(final double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT && total > 0; i++) {
+            seen += counts.get(i);
+
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Get the bucket of a value: the value itself below {@link #SUB_BUCKET_COUNT}, otherwise its magnitude and its
+     * {@link #SUB_BUCKET_BITS} highest bits.
+     */
+    static int bucketOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+    }
+
+    /**
+     * Get the highest value counted by a bucket.
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+
+        final int shift = (bucket >> (SUB_BUCKET_BITS - 1)) - 1;
+        final long subBucket = bucket - ((long) shift << (SUB_BUCKET_BITS - 1));
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
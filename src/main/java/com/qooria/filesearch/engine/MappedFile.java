@@ -0,0 +1,125 @@
+package com.qooria.filesearch.engine;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only file mapped into memory as a series of segments, so that files over 2GB can be addressed by {@code long}
+ * positions.
+ * <p>
+ * Each segment overlaps the next one by 8 bytes, so an {@code int} or {@code long} always lies within the segment of
+ * its first byte.
+ */
+final class MappedFile {
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final int SEGMENT_OVERLAP = Long.BYTES;
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /**
+     * Constructor to map a file.
+     *
+     * @param path {@link Path} The file to map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedFile(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT_SIZE + SEGMENT_OVERLAP));
+            }
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    int getInt(final long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    long getLong(final long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    byte get(final long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    /**
+     * Copies bytes of the file into an array.
+     *
+     * @param position The file position to copy from
+     * @param target   The array to fill
+     */
+    void get(final long position, final byte[] target) {
+        get(position, target, target.length);
+    }
+
+    /**
+     * Copies bytes of the file to the start of an array, segment by segment.
+     *
+     * @param position  The file position to copy from
+     * @param target    The array to copy to
+     * @param byteCount The number of bytes to copy
+     */
+    void get(final long position, final byte[] target, final int byteCount) {
+        int copied = 0;
+
+        while (copied < byteCount) {
+            final long start = position + copied;
+            final int offset = (int) (start & (SEGMENT_SIZE - 1));
+            final int length = (int) Math.min(byteCount - copied, SEGMENT_SIZE - offset);
+            final ByteBuffer segment = segments[(int) (start >>> SEGMENT_SHIFT)].duplicate();
+
+            ((Buffer) segment).position(offset);
+            segment.get(target, copied, length);
+            copied += length;
+        }
+    }
+
+    /**
+     * Get a read-only view of bytes of the file. Bytes lying across two segments, which only happens once per segment,
+     * are copied onto the heap instead.
+     *
+     * @param position The file position of the first byte
+     * @param length   The number of bytes
+     * @return {@link ByteBuffer} The bytes, from index 0
+     */
+    ByteBuffer slice(final long position, final int length) {
+        final int offset = (int) (position & (SEGMENT_SIZE - 1));
+
+        if (offset + (long) length > SEGMENT_SIZE + SEGMENT_OVERLAP) {
+            final byte[] bytes = new byte[length];
+            get(position, bytes);
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+
+        return slice(segments[(int) (position >>> SEGMENT_SHIFT)], offset, length);
+    }
+
+    /**
+     * Get a read-only view of bytes of a buffer.
+     *
+     * @param buffer {@link ByteBuffer} The buffer
+     * @param offset The index of the first byte
+     * @param length The number of bytes
+     * @return {@link ByteBuffer} The bytes, from index 0
+     */
+    static ByteBuffer slice(final ByteBuffer buffer, final int offset, final int length) {
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        // Buffer methods are called through Buffer, whose methods ByteBuffer only overrides from Java 9.
+        ((Buffer) view).limit(offset + length).position(offset);
+        return view.slice();
+    }
+}
@@ -0,0 +1,366 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index persisted to a file and read through a memory mapping, so that opening it does not load the term dictionary,
+ * the postings or the file table onto the heap.
+ * <p>
+ * The file starts with a fixed size header followed by seven sections, all numbers being big-endian:
+ * <ul>
+ * <li>file infos: the last modification time, the size and the length in terms of every file as three longs, by file
+ * id</li>
+ * <li>path offsets: {@code documentCount + 1} longs, the start of each path in the paths section, then its end</li>
+ * <li>paths: the UTF-8 path of every file, by file id</li>
+ * <li>term offsets: {@code termCount + 1} longs, the start of each term in the terms section, then its end</li>
+ * <li>terms: the UTF-8 bytes of every term, in ascending byte order</li>
+ * <li>term infos: for every term, its document frequency as an int, 4 bytes of padding and the start of its postings
+ * in the postings section as a long</li>
+ * <li>postings: for every term, its {@link CompressedPostings} as written by
+ * {@link CompressedPostings#writeTo(java.io.DataOutput)}</li>
+ * </ul>
+ */
+public final class MappedIndex implements TermIndex, DocumentTable {
+    private static final int MAGIC = 0x46534958;
+    private static final int VERSION = 6;
+    private static final int CASE_SENSITIVE_FLAG = 1;
+    private static final int POSITIONS_FLAG = 2;
+    private static final int HEADER_SIZE = 88;
+    private static final int FILE_INFO_SIZE = 24;
+    private static final int TERM_INFO_SIZE = 16;
+    private final MappedFile file;
+    private final boolean caseSensitive;
+    private final boolean hasPositions;
+    private final int documentCount;
+    private final int termCount;
+    private final long totalLength;
+    private final long fileInfosStart;
+    private final long pathOffsetsStart;
+    private final long pathsStart;
+    private final long termOffsetsStart;
+    private final long termsStart;
+    private final long termInfosStart;
+    private final long postingsStart;
+
+    private MappedIndex(final MappedFile file) throws IOException {
+        if (file.size() < HEADER_SIZE || file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            throw new IOException(ConsoleMessage.INVALID_INDEX_FILE.getMessage());
+        }
+
+        this.file = file;
+        this.caseSensitive = (file.getInt(8) & CASE_SENSITIVE_FLAG) != 0;
+        this.hasPositions = (file.getInt(8) & POSITIONS_FLAG) != 0;
+        this.documentCount = file.getInt(12);
+        this.termCount = file.getInt(16);
+        this.fileInfosStart = file.getLong(24);
+        this.pathOffsetsStart = file.getLong(32);
+        this.pathsStart = file.getLong(40);
+        this.termOffsetsStart = file.getLong(48);
+        this.termsStart = file.getLong(56);
+        this.termInfosStart = file.getLong(64);
+        this.postingsStart = file.getLong(72);
+        this.totalLength = file.getLong(80);
+    }
+
+    /**
+     * Opens an index file written by {@link #write(TermIndex, DocumentTable, boolean, Path)}.
+     *
+     * @param path {@link Path} The index file
+     * @return {@link MappedIndex} The mapped index
+     * @throws IOException if the file cannot be mapped or is not an index file
+     */
+    public static MappedIndex open(final Path path) throws IOException {
+        return new MappedIndex(new MappedFile(path));
+    }
+
+    /**
+     * Writes an index and its file table to a file.
+     *
+     * @param index         {@link TermIndex} The index
+     * @param files         {@link DocumentTable} The indexed files
+     * @param caseSensitive Whether the index was built case sensitive
+     * @param path          {@link Path} The index file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(final TermIndex index, final DocumentTable files, final boolean caseSensitive, final Path path) throws IOException {
+        final List<byte[]> paths = new ArrayList<>(files.getDocumentCount());
+        for (int i = 0; i < files.getDocumentCount(); i++) {
+            paths.add(files.getPath(i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        final List<String> terms = new ArrayList<>();
+        index.getTerms().forEach(terms::add);
+        terms.sort((first, second) -> TermDictionary.compare(first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8)));
+
+        final List<byte[]> termBytes = new ArrayList<>(terms.size());
+        final List<CompressedPostings> postings = new ArrayList<>(terms.size());
+        terms.forEach(t -> {
+            termBytes.add(t.getBytes(StandardCharsets.UTF_8));
+            postings.add(CompressedPostings.of(index.getPostings(t)));
+        });
+
+        final long fileInfosStart = HEADER_SIZE;
+        final long pathOffsetsStart = fileInfosStart + (long) paths.size() * FILE_INFO_SIZE;
+        final long pathsStart = pathOffsetsStart + (paths.size() + 1L) * Long.BYTES;
+        final long termOffsetsStart = pathsStart + totalLength(paths);
+        final long termsStart = termOffsetsStart + (terms.size() + 1L) * Long.BYTES;
+        final long termInfosStart = termsStart + totalLength(termBytes);
+        final long postingsStart = termInfosStart + (long) terms.size() * TERM_INFO_SIZE;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt((caseSensitive ? CASE_SENSITIVE_FLAG : 0) | (index.hasPositions() ? POSITIONS_FLAG : 0));
+            out.writeInt(paths.size());
+            out.writeInt(terms.size());
+            out.writeInt(0);
+            out.writeLong(fileInfosStart);
+            out.writeLong(pathOffsetsStart);
+            out.writeLong(pathsStart);
+            out.writeLong(termOffsetsStart);
+            out.writeLong(termsStart);
+            out.writeLong(termInfosStart);
+            out.writeLong(postingsStart);
+            out.writeLong(index.getTotalLength());
+
+            for (int i = 0; i < paths.size(); i++) {
+                out.writeLong(files.getLastModified(i));
+                out.writeLong(files.getSize(i));
+                out.writeLong(index.getDocumentLength(i));
+            }
+
+            writeOffsets(out, paths);
+            for (byte[] bytes : paths) {
+                out.write(bytes);
+            }
+
+            writeOffsets(out, termBytes);
+            for (byte[] bytes : termBytes) {
+                out.write(bytes);
+            }
+
+            long postingsOffset = 0;
+            for (CompressedPostings list : postings) {
+                out.writeInt(list.size());
+                out.writeInt(0);
+                out.writeLong(postingsOffset);
+                postingsOffset += list.getWrittenSize();
+            }
+
+            for (CompressedPostings list : postings) {
+                list.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Get whether the index was built case sensitive.
+     *
+     * @return {@code true} if the index was built case sensitive, otherwise {@code false}
+     */
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    @Override
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    @Override
+    public int getDocumentLength(final int documentId) {
+        return (int) file.getLong(getFileInfo(documentId) + 2L * Long.BYTES);
+    }
+
+    @Override
+    public long getTotalLength() {
+        return totalLength;
+    }
+
+    @Override
+    public boolean hasPositions() {
+        return hasPositions;
+    }
+
+    @Override
+    public List<String> getTerms() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(final int index) {
+                return getTerm(index);
+            }
+
+            @Override
+            public int size() {
+                return termCount;
+            }
+        };
+    }
+
+    @Override
+    public List<String> getTerms(final String prefix) {
+        final byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        final byte[] end = TermDictionary.successor(key);
+        return getTerms().subList(lowerBound(key), end == null ? termCount : lowerBound(end));
+    }
+
+    @Override
+    public void forEachTerm(final TermVisitor visitor) {
+        byte[] term = new byte[32];
+
+        for (int termId = 0; termId < termCount; termId++) {
+            final long start = file.getLong(termOffsetsStart + (long) termId * Long.BYTES);
+            final int length = (int) (file.getLong(termOffsetsStart + (termId + 1L) * Long.BYTES) - start);
+
+            if (term.length < length) {
+                term = new byte[Math.max(term.length * 2, length)];
+            }
+            file.get(termsStart + start, term, length);
+            visitor.visit(termId, term, length);
+        }
+    }
+
+    @Override
+    public CompressedPostings getPostings(final int ordinal) {
+        if (ordinal < 0 || ordinal >= termCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(ordinal));
+        }
+
+        return readPostings(ordinal);
+    }
+
+    @Override
+    public CompressedPostings getPostings(final String term) {
+        final byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        final int termId = lowerBound(key);
+
+        return termId < termCount && compareTerm(termId, key) == 0 ? readPostings(termId) : null;
+    }
+
+    /**
+     * Get the path of a file, read from the mapping.
+     *
+     * @param documentId The file id
+     * @return {@link String} The file path
+     */
+    @Override
+    public String getPath(final int documentId) {
+        return readString(pathOffsetsStart, pathsStart, documentCount, documentId);
+    }
+
+    /**
+     * Get the content of a file, which is not stored in an index file.
+     *
+     * @param documentId The file id
+     * @return {@code null}
+     */
+    @Override
+    public String getContent(final int documentId) {
+        getFileInfo(documentId);
+        return null;
+    }
+
+    @Override
+    public long getLastModified(final int documentId) {
+        return file.getLong(getFileInfo(documentId));
+    }
+
+    @Override
+    public long getSize(final int documentId) {
+        return file.getLong(getFileInfo(documentId) + Long.BYTES);
+    }
+
+    /**
+     * Get the offset of the infos of a file in the mapping.
+     */
+    private long getFileInfo(final int documentId) {
+        if (documentId < 0 || documentId >= documentCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(documentId));
+        }
+
+        return fileInfosStart + (long) documentId * FILE_INFO_SIZE;
+    }
+
+    private String getTerm(final int termId) {
+        return readString(termOffsetsStart, termsStart, termCount, termId);
+    }
+
+    private String readString(final long offsetsStart, final long valuesStart, final int count, final int id) {
+        if (id < 0 || id >= count) {
+            throw new IndexOutOfBoundsException(String.valueOf(id));
+        }
+
+        final long start = file.getLong(offsetsStart + (long) id * Long.BYTES);
+        final long end = file.getLong(offsetsStart + (id + 1L) * Long.BYTES);
+        final byte[] bytes = new byte[(int) (end - start)];
+        file.get(valuesStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the id of the first term that is not lower than a key, or the number of terms if there is none.
+     */
+    private int lowerBound(final byte[] key) {
+        int low = 0;
+        int high = termCount;
+
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+
+            if (compareTerm(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int compareTerm(final int termId, final byte[] key) {
+        final long start = file.getLong(termOffsetsStart + (long) termId * Long.BYTES);
+        final int length = (int) (file.getLong(termOffsetsStart + (termId + 1L) * Long.BYTES) - start);
+
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            final int comparison = Integer.compare(file.get(termsStart + start + i) & 0xff, key[i] & 0xff);
+
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return Integer.compare(length, key.length);
+    }
+
+    private CompressedPostings readPostings(final int termId) {
+        final long info = termInfosStart + (long) termId * TERM_INFO_SIZE;
+        return CompressedPostings.read(file, postingsStart + file.getLong(info + Long.BYTES));
+    }
+
+    private static long totalLength(final List<byte[]> values) {
+        long length = 0;
+        for (byte[] value : values) {
+            length += value.length;
+        }
+        return length;
+    }
+
+    private static void writeOffsets(final DataOutputStream out, final List<byte[]> values) throws IOException {
+        long offset = 0;
+        for (byte[] value : values) {
+            out.writeLong(offset);
+            offset += value.length;
+        }
+        out.writeLong(offset);
+    }
+}
@@ -0,0 +1,201 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Iterates, in ascending id order and without allocating, over the files found in any of several postings lists,
+ * exposing the frequency of each list in the current file. With a filter, it iterates over the files of the filter
+ * instead, the postings lists then only being advanced to them.
+ * <p>
+ * Given an upper bound of the rank each list can add to a file and the rank a file must beat, {@link #next(double[],
+ * double)} skips the files that cannot beat it with the WAND algorithm: the lists are ordered by their current file,
+ * and the pivot is the file of the first list at which the bounds of the lists so far exceed the rank to beat. No file
+ * before the pivot can, so the lists before it are advanced to the pivot, skipping whole blocks of compressed
+ * postings, until the first list reaches it.
+ */
+final class MatchedDocuments {
+    private static final int NO_DOCUMENT = -1;
+    private final PostingsCursor[] cursors;
+    private final DocumentIterator filter;
+    private final int[] order;
+    private int documentId = NO_DOCUMENT;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param postings Array of {@link PostingsList} The postings lists, {@code null} standing for an empty list
+     */
+    MatchedDocuments(final PostingsList[] postings) {
+        this(postings, null);
+    }
+
+    /**
+     * Constructor to initialize fields and the filter.
+     *
+     * @param postings Array of {@link PostingsList} The postings lists, {@code null} standing for an empty list
+     * @param filter   {@link DocumentIterator} The files to iterate over, {@code null} for the files of any list
+     */
+    MatchedDocuments(final PostingsList[] postings, final DocumentIterator filter) {
+        this.cursors = new PostingsCursor[postings.length];
+        this.filter = filter;
+        this.order = new int[postings.length];
+
+        for (int i = 0; i < postings.length; i++) {
+            cursors[i] = postings[i] == null ? new Postings(0).cursor() : postings[i].cursor();
+            cursors[i].next();
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Moves to the next file found in any of the postings lists.
+     *
+     * @return {@code true} if there is a next file, otherwise {@code false}
+     */
+    boolean next() {
+        if (filter != null) {
+            final int next = filter.next();
+
+            for (PostingsCursor cursor : cursors) {
+                if (cursor.documentId() < next) {
+                    cursor.advance(next);
+                }
+            }
+
+            documentId = next == PostingsCursor.NO_MORE_DOCUMENTS ? NO_DOCUMENT : next;
+            return documentId != NO_DOCUMENT;
+        }
+
+        int next = PostingsCursor.NO_MORE_DOCUMENTS;
+
+        for (PostingsCursor cursor : cursors) {
+            if (cursor.documentId() == documentId) {
+                cursor.next();
+            }
+            next = Math.min(next, cursor.documentId());
+        }
+
+        documentId = next == PostingsCursor.NO_MORE_DOCUMENTS ? NO_DOCUMENT : next;
+        return documentId != NO_DOCUMENT;
+    }
+
+    /**
+     * Moves to the next file found in any of the postings lists that may rank higher than a threshold, given an upper
+     * bound of the rank each list adds to the files it contains.
+     *
+     * @param maxRanks  The upper bound of the rank added by each postings list
+     * @param threshold The rank to beat
+     * @return {@code true} if there is such a file, otherwise {@code false}
+     */
+    boolean next(final double[] maxRanks, final double threshold) {
+        if (threshold == Double.NEGATIVE_INFINITY) {
+            return next();
+        }
+
+        if (filter != null) {
+            double maxRank = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                maxRank += hasMore(i) ? maxRanks[i] : 0;
+            }
+            return maxRank > threshold && next();
+        }
+
+        for (PostingsCursor cursor : cursors) {
+            if (cursor.documentId() == documentId) {
+                cursor.next();
+            }
+        }
+
+        while (true) {
+            sortByDocumentId();
+            final int pivot = findPivot(maxRanks, threshold);
+
+            if (pivot == PostingsCursor.NO_MORE_DOCUMENTS) {
+                documentId = NO_DOCUMENT;
+                return false;
+            }
+            if (cursors[order[0]].documentId() == pivot) {
+                documentId = pivot;
+                return true;
+            }
+
+            for (int i = 0; i < order.length && cursors[order[i]].documentId() < pivot; i++) {
+                cursors[order[i]].advance(pivot);
+            }
+        }
+    }
+
+    /**
+     * Get the id of the current file.
+     *
+     * @return The file id
+     */
+    int getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Get the number of postings lists.
+     *
+     * @return The number of postings lists
+     */
+    int getListCount() {
+        return cursors.length;
+    }
+
+    /**
+     * Checks if a postings list may still contain files after the current one.
+     *
+     * @param list The position of the postings list
+     * @return {@code false} if the list has no file after the current one, otherwise {@code true}
+     */
+    boolean hasMore(final int list) {
+        return cursors[list].documentId() != PostingsCursor.NO_MORE_DOCUMENTS;
+    }
+
+    /**
+     * Get the frequency of a postings list in the current file.
+     *
+     * @param list The position of the postings list
+     * @return The frequency, 0 if the list does not contain the current file
+     */
+    int getFrequency(final int list) {
+        return cursors[list].documentId() == documentId ? cursors[list].frequency() : 0;
+    }
+
+    /**
+     * Get the file of the first list, in file order, at which the bounds of the lists so far exceed the threshold.
+     */
+    private int findPivot(final double[] maxRanks, final double threshold) {
+        double maxRank = 0;
+
+        for (int list : order) {
+            final int documentId = cursors[list].documentId();
+
+            if (documentId == PostingsCursor.NO_MORE_DOCUMENTS) {
+                break;
+            }
+
+            maxRank += maxRanks[list];
+
+            if (maxRank > threshold) {
+                return documentId;
+            }
+        }
+
+        return PostingsCursor.NO_MORE_DOCUMENTS;
+    }
+
+    /**
+     * Insertion sort of the lists by current file, as few lists move between two calls.
+     */
+    private void sortByDocumentId() {
+        for (int i = 1; i < order.length; i++) {
+            final int list = order[i];
+            int j = i - 1;
+
+            for (; j >= 0 && cursors[order[j]].documentId() > cursors[list].documentId(); j--) {
+                order[j + 1] = order[j];
+            }
+            order[j + 1] = list;
+        }
+    }
+}
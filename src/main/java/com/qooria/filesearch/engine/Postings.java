@@ -0,0 +1,243 @@
+package com.qooria.filesearch.engine;
+
+import java.util.Arrays;
+
+/**
+ * Uncompressed postings list of a term, the ids of the files containing the term and the term frequency in each held in
+ * arrays, used to collect postings before they are sorted and compressed into {@link CompressedPostings}. A postings
+ * list created with positions also holds the positions of the term in each file.
+ */
+public final class Postings implements PostingsList {
+    private static final int INITIAL_CAPACITY = 4;
+    private int[] documentIds;
+    private int[] frequencies;
+    private int[][] positions;
+    private int size;
+    private boolean sorted = true;
+
+    /**
+     * Constructor to initialize an empty postings list.
+     */
+    Postings() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor to initialize an empty postings list with room for a number of files.
+     *
+     * @param capacity The number of files
+     */
+    Postings(final int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Constructor to initialize an empty postings list with room for a number of files, with or without positions.
+     *
+     * @param capacity     The number of files
+     * @param hasPositions Whether the postings list holds positions, added with {@link #add(int, int[])}
+     */
+    Postings(final int capacity, final boolean hasPositions) {
+        this.documentIds = new int[Math.max(capacity, 1)];
+        this.frequencies = new int[Math.max(capacity, 1)];
+        this.positions = hasPositions ? new int[Math.max(capacity, 1)][] : null;
+    }
+
+    private Postings(final int[] documentIds, final int[] frequencies, final int[][] positions, final int size) {
+        this.documentIds = documentIds;
+        this.frequencies = frequencies;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean hasPositions() {
+        return positions != null;
+    }
+
+    @Override
+    public int getMaxFrequency() {
+        int maxFrequency = 0;
+        for (int i = 0; i < size; i++) {
+            maxFrequency = Math.max(maxFrequency, frequencies[i]);
+        }
+        return maxFrequency;
+    }
+
+    /**
+     * Get the lowest number of terms of the files in the postings list, which a postings list does not know.
+     *
+     * @return 0
+     */
+    @Override
+    public int getMinDocumentLength() {
+        return 0;
+    }
+
+    /**
+     * Get a new cursor positioned before the first file. Files are read in the order they were added, so only the
+     * cursor of a {@link #copy()} is guaranteed to read them in ascending id order.
+     *
+     * @return {@link PostingsCursor} The cursor
+     */
+    @Override
+    public PostingsCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Get the file id at a position of the postings list.
+     *
+     * @param index The position in the postings list
+     * @return The file id
+     */
+    public int getDocumentId(final int index) {
+        return documentIds[index];
+    }
+
+    /**
+     * Get the term frequency at a position of the postings list.
+     *
+     * @param index The position in the postings list
+     * @return The number of times the term occurs in the file
+     */
+    public int getFrequency(final int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Appends a file to the postings list. Files added out of id order, or more than once, are sorted and merged by
+     * {@link #copy()}.
+     *
+     * @param documentId The file id
+     * @param frequency  The number of times the term occurs in the file
+     */
+    void add(final int documentId, final int frequency) {
+        if (size > 0 && documentId <= documentIds[size - 1]) {
+            sorted = false;
+        }
+
+        if (size == documentIds.length) {
+            documentIds = Arrays.copyOf(documentIds, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+
+            if (positions != null) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+        }
+
+        documentIds[size] = documentId;
+        frequencies[size] = frequency;
+        size++;
+    }
+
+    /**
+     * Appends a file to a postings list with positions.
+     *
+     * @param documentId    The file id
+     * @param termPositions The positions of the term in the file, in ascending order
+     */
+    void add(final int documentId, final int[] termPositions) {
+        add(documentId, termPositions.length);
+        positions[size - 1] = termPositions;
+    }
+
+    /**
+     * Get a trimmed copy of the postings list, in ascending id order, that is not affected by later additions. The
+     * frequencies of a file added more than once are summed, and its positions merged.
+     *
+     * @return {@link Postings} The copy
+     */
+    Postings copy() {
+        if (sorted) {
+            return new Postings(Arrays.copyOf(documentIds, size), Arrays.copyOf(frequencies, size),
+                    positions == null ? null : Arrays.copyOf(positions, size), size);
+        }
+
+        // Sort the entries by file id, their index breaking ties so that the additions of a file keep their order.
+        final long[] entries = new long[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = ((long) documentIds[i] << Integer.SIZE) | i;
+        }
+        Arrays.sort(entries);
+
+        final int[] sortedIds = new int[size];
+        final int[] sortedFrequencies = new int[size];
+        final int[][] sortedPositions = positions == null ? null : new int[size][];
+        int count = 0;
+        for (long entry : entries) {
+            final int documentId = (int) (entry >>> Integer.SIZE);
+            final int index = (int) entry;
+
+            if (count > 0 && sortedIds[count - 1] == documentId) {
+                sortedFrequencies[count - 1] += frequencies[index];
+
+                if (sortedPositions != null) {
+                    sortedPositions[count - 1] = merge(sortedPositions[count - 1], positions[index]);
+                }
+            } else {
+                sortedIds[count] = documentId;
+                sortedFrequencies[count] = frequencies[index];
+
+                if (sortedPositions != null) {
+                    sortedPositions[count] = positions[index];
+                }
+                count++;
+            }
+        }
+
+        return new Postings(Arrays.copyOf(sortedIds, count), Arrays.copyOf(sortedFrequencies, count),
+                sortedPositions == null ? null : Arrays.copyOf(sortedPositions, count), count);
+    }
+
+    private static int[] merge(final int[] first, final int[] second) {
+        final int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private final class Cursor implements PostingsCursor {
+        private int index = -1;
+        private int position;
+
+        @Override
+        public int documentId() {
+            return index < 0 ? -1 : index < size ? documentIds[index] : NO_MORE_DOCUMENTS;
+        }
+
+        @Override
+        public int frequency() {
+            return frequencies[index];
+        }
+
+        @Override
+        public int nextPosition() {
+            return positions[index][position++];
+        }
+
+        @Override
+        public int next() {
+            index = Math.min(index + 1, size);
+            position = 0;
+            return documentId();
+        }
+
+        @Override
+        public int advance(final int target) {
+            if (documentId() >= target) {
+                return documentId();
+            }
+
+            final int found = Arrays.binarySearch(documentIds, index + 1, size, target);
+            index = found >= 0 ? found : -found - 1;
+            position = 0;
+            return documentId();
+        }
+    }
+}
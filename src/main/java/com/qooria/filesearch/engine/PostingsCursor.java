@@ -0,0 +1,50 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Forward-only cursor over a {@link PostingsList}. A cursor starts before the first file, with a file id of -1, and
+ * ends on {@link #NO_MORE_DOCUMENTS}.
+ */
+public interface PostingsCursor {
+    /**
+     * File id of a cursor past the last file of its postings list.
+     */
+    int NO_MORE_DOCUMENTS = Integer.MAX_VALUE;
+
+    /**
+     * Get the id of the current file.
+     *
+     * @return The file id, -1 before the first file or {@link #NO_MORE_DOCUMENTS} after the last one
+     */
+    int documentId();
+
+    /**
+     * Get the term frequency in the current file.
+     *
+     * @return The number of times the term occurs in the file
+     */
+    int frequency();
+
+    /**
+     * Get the next position of the term in the current file, positions being read in ascending order. It may be called
+     * at most {@link #frequency()} times per file, and only if the postings list {@link PostingsList#hasPositions()}.
+     *
+     * @return The position, the number of terms before the occurrence in the file
+     */
+    int nextPosition();
+
+    /**
+     * Moves to the next file.
+     *
+     * @return The id of the next file, or {@link #NO_MORE_DOCUMENTS}
+     */
+    int next();
+
+    /**
+     * Moves to the first file whose id is at least a target, skipping the files in between without decoding them where
+     * possible. The cursor does not move if it is already there.
+     *
+     * @param target The file id to reach
+     * @return The id of the file reached, or {@link #NO_MORE_DOCUMENTS}
+     */
+    int advance(int target);
+}
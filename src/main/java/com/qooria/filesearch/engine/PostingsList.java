@@ -0,0 +1,46 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Postings list of a term: the ids of the files containing the term, in ascending order, and the term frequency in
+ * each, read through a {@link PostingsCursor}, and optionally the positions of the term in each file.
+ */
+public interface PostingsList {
+
+    /**
+     * Get the number of files in the postings list.
+     *
+     * @return The document frequency of the term
+     */
+    int size();
+
+    /**
+     * Get whether the postings list holds the positions of the term, to be read with
+     * {@link PostingsCursor#nextPosition()}.
+     *
+     * @return {@code true} if positions are held, otherwise {@code false}
+     */
+    boolean hasPositions();
+
+    /**
+     * Get the highest term frequency of the files in the postings list, which bounds the rank a file can get from the
+     * term.
+     *
+     * @return The highest frequency, 0 if the list is empty
+     */
+    int getMaxFrequency();
+
+    /**
+     * Get the lowest number of terms of the files in the postings list, which bounds the rank a file can get from the
+     * term with length normalization.
+     *
+     * @return The lowest file length, 0 if it is unknown
+     */
+    int getMinDocumentLength();
+
+    /**
+     * Get a new cursor positioned before the first file of the postings list.
+     *
+     * @return {@link PostingsCursor} The cursor
+     */
+    PostingsCursor cursor();
+}
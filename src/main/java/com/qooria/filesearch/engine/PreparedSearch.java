@@ -0,0 +1,53 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Query whose clause postings were collected from an index, ready to be ranked with the statistics of that index or of
+ * a collection the index is part of.
+ */
+final class PreparedSearch {
+    private final Query query;
+    private final IndexSnapshot snapshot;
+    private final PostingsList[] postings;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param query    {@link Query} The query
+     * @param snapshot {@link IndexSnapshot} The index searched
+     * @param postings Array of {@link PostingsList} The postings of every clause, {@code null} standing for a clause
+     *                 found in no file
+     */
+    PreparedSearch(final Query query, final IndexSnapshot snapshot, final PostingsList[] postings) {
+        this.query = query;
+        this.snapshot = snapshot;
+        this.postings = postings;
+    }
+
+    Query getQuery() {
+        return query;
+    }
+
+    IndexSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    PostingsList[] getPostings() {
+        return postings;
+    }
+
+    /**
+     * Get the statistics of the index searched.
+     *
+     * @return {@link CollectionStatistics} The number of files and terms of the index and the number of files every
+     * scored clause occurs in
+     */
+    CollectionStatistics getStatistics() {
+        final int[] documentFrequencies = new int[query.getScoredClauseCount()];
+
+        for (int i = 0; i < documentFrequencies.length; i++) {
+            documentFrequencies[i] = postings[i] == null ? 0 : postings[i].size();
+        }
+
+        return new CollectionStatistics(snapshot.getDocuments().getDocumentCount(), snapshot.getIndex().getTotalLength(), documentFrequencies);
+    }
+}
@@ -0,0 +1,80 @@
+package com.qooria.filesearch.engine;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed search query: its distinct clauses and, for a Boolean query, the operator tree selecting the files it matches.
+ * <p>
+ * The clauses found outside {@code NOT} are scored and come first; the clauses only found under {@code NOT} follow
+ * them. A query without {@code AND} or {@code NOT} has no tree, as it matches the files any of its clauses occurs in.
+ */
+final class Query {
+    private final List<QueryClause> clauses;
+    private final int scoredClauseCount;
+    private final QueryNode root;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param clauses           {@link List} of {@link QueryClause} The distinct clauses, the scored ones first
+     * @param scoredClauseCount The number of scored clauses
+     * @param root              {@link QueryNode} The operator tree, {@code null} for a query matching any clause
+     */
+    Query(final List<QueryClause> clauses, final int scoredClauseCount, final QueryNode root) {
+        this.clauses = clauses;
+        this.scoredClauseCount = scoredClauseCount;
+        this.root = root;
+    }
+
+    List<QueryClause> getClauses() {
+        return clauses;
+    }
+
+    int getScoredClauseCount() {
+        return scoredClauseCount;
+    }
+
+    boolean isBoolean() {
+        return root != null;
+    }
+
+    /**
+     * Get the normalized form of the query: its clauses, in order, and its operator tree. Queries with the same
+     * normalized form match and rank the same files, even if they are written differently.
+     *
+     * @return {@link String} The normalized query
+     */
+    String getKey() {
+        final StringBuilder key = new StringBuilder();
+
+        for (QueryClause clause : clauses) {
+            key.append(clause.getText()).append(' ');
+        }
+
+        return root == null ? key.toString() : key.append("| ").append(root).toString();
+    }
+
+    /**
+     * Compiles the operator tree to an iterator over the files the query matches.
+     *
+     * @param postings      Array of {@link PostingsList} The postings of every clause, in clause order, {@code null}
+     *                      standing for a clause found in no file
+     * @param documentCount The number of indexed files
+     * @return {@link DocumentIterator} The iterator, or {@code null} if the query is not Boolean
+     */
+    DocumentIterator iterator(final PostingsList[] postings, final int documentCount) {
+        if (root == null) {
+            return null;
+        }
+
+        final Map<QueryClause, PostingsList> clausePostings = new IdentityHashMap<>();
+
+        for (int i = 0; i < clauses.size(); i++) {
+            clausePostings.put(clauses.get(i), postings[i]);
+        }
+
+        return root.iterator(clausePostings, documentCount);
+    }
+}
@@ -0,0 +1,183 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.dto.FileResult;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of search results keyed on the normalized query, bounded by a number of entries and an estimate of the bytes
+ * they take, the least recently used entries being evicted first.
+ * <p>
+ * Every entry remembers the index it was computed against, and only a search of the same index finds it; the engine
+ * also clears the cache whenever it replaces its index. The estimate counts the results, their paths, decoded for
+ * every result, and their keys, not the content of the files, which the results share with the indexed files. Results
+ * are mutable, so the cache keeps its own copies and hands every search that finds them new copies, in a list of the
+ * same kind as an uncached search returns.
+ * <p>
+ * The cache is safe for concurrent use; its methods are synchronized, and are short compared to a search.
+ */
+public final class QueryCache {
+    private static final long ENTRY_BYTES = 96;
+    private static final long RESULT_BYTES = 104;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor to initialize the bounds.
+     *
+     * @param maxEntries The maximum number of cached queries
+     * @param maxBytes   The maximum estimated number of bytes taken by the cached results
+     */
+    public QueryCache(final int maxEntries, final long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get the results of a query against an index. An entry computed against another index is dropped.
+     *
+     * @param key   {@link String} The normalized query
+     * @param index {@link IndexSnapshot} The index searched
+     * @return {@link List} of {@link FileResult} The cached results, or {@code null} if there are none
+     */
+    synchronized List<FileResult> get(final String key, final IndexSnapshot index) {
+        final Entry entry = entries.get(key);
+
+        if (entry != null && entry.index == index) {
+            hitCount++;
+            return copy(entry.results);
+        }
+
+        if (entry != null) {
+            remove(key);
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Caches the results of a query against an index, evicting the least recently used entries beyond the bounds.
+     *
+     * @param key     {@link String} The normalized query
+     * @param index   {@link IndexSnapshot} The index searched
+     * @param results {@link List} of {@link FileResult} The results
+     * @return {@link List} of {@link FileResult} The results given, which the cache does not share
+     */
+    synchronized List<FileResult> put(final String key, final IndexSnapshot index, final List<FileResult> results) {
+        long resultBytes = ENTRY_BYTES + 2L * key.length();
+        for (FileResult result : results) {
+            resultBytes += RESULT_BYTES + 2L * result.getPath().length();
+        }
+
+        if (resultBytes > maxBytes) {
+            return results;
+        }
+
+        final Entry entry = new Entry(index, copy(results), resultBytes);
+
+        remove(key);
+        entries.put(key, entry);
+        bytes += entry.bytes;
+
+        final Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictionCount++;
+        }
+
+        return results;
+    }
+
+    /**
+     * Removes every entry, when the index changes.
+     */
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Get the number of cached queries.
+     *
+     * @return The number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the estimated number of bytes taken by the cached results.
+     *
+     * @return The estimated size
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Get the number of searches answered from the cache.
+     *
+     * @return The hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of searches not found in the cache.
+     *
+     * @return The miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of entries evicted to stay within the bounds.
+     *
+     * @return The eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void remove(final String key) {
+        final Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            bytes -= entry.bytes;
+        }
+    }
+
+    private static List<FileResult> copy(final List<FileResult> results) {
+        final List<FileResult> copies = new ArrayList<>(results.size());
+
+        for (FileResult result : results) {
+            copies.add(new FileResult(result.getScore(), result.getRank(), result.getPath(), result.getContent()));
+        }
+
+        return copies;
+    }
+
+    private static final class Entry {
+        private final IndexSnapshot index;
+        private final List<FileResult> results;
+        private final long bytes;
+
+        private Entry(final IndexSnapshot index, final List<FileResult> results, final long bytes) {
+            this.index = index;
+            this.results = results;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.qooria.filesearch.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Clause of a search query: a word, a phrase of terms that must follow one another, or terms that must occur near one
+ * another. Every clause is ranked like a word, the frequency of a phrase or proximity clause in a file being its number
+ * of matches.
+ * <p>
+ * A phrase or proximity clause is a chain of terms, each allowed within a range of distances, in positions, from the
+ * previous one: exactly 1 for a phrase, between {@code -k} and {@code k} for {@code NEAR/k}. Its matches are found in
+ * an index with positions by intersecting the postings of its terms and merging the position lists of every file they
+ * all occur in, without reading the files.
+ */
+final class QueryClause {
+    private final String text;
+    private final List<String> terms;
+    private final int[] minDistances;
+    private final int[] maxDistances;
+
+    private QueryClause(final String text, final List<String> terms, final int[] minDistances, final int[] maxDistances) {
+        this.text = text;
+        this.terms = terms;
+        this.minDistances = minDistances;
+        this.maxDistances = maxDistances;
+    }
+
+    /**
+     * Creates a word clause.
+     *
+     * @param word {@link String} The word
+     * @return {@link QueryClause} The clause
+     */
+    static QueryClause word(final String word) {
+        return new QueryClause(word, Collections.singletonList(word), null, null);
+    }
+
+    /**
+     * Creates a phrase clause.
+     *
+     * @param terms {@link List} of {@link String} The terms of the phrase, at least two
+     * @return {@link QueryClause} The clause
+     */
+    static QueryClause phrase(final List<String> terms) {
+        final int[] distances = new int[terms.size() - 1];
+        Arrays.fill(distances, 1);
+        return new QueryClause('"' + String.join(" ", terms) + '"', terms, distances, distances);
+    }
+
+    /**
+     * Creates a proximity clause.
+     *
+     * @param terms     {@link List} of {@link String} The terms, at least two
+     * @param distances The maximum distance of every term but the first from the previous one, in either direction
+     * @return {@link QueryClause} The clause
+     */
+    static QueryClause near(final List<String> terms, final int[] distances) {
+        final StringBuilder text = new StringBuilder(terms.get(0));
+        final int[] minDistances = new int[distances.length];
+
+        for (int i = 0; i < distances.length; i++) {
+            minDistances[i] = -distances[i];
+            text.append(" NEAR/").append(distances[i]).append(' ').append(terms.get(i + 1));
+        }
+
+        return new QueryClause(text.toString(), terms, minDistances, distances.clone());
+    }
+
+    /**
+     * Get the text of the clause, distinct for distinct clauses.
+     *
+     * @return {@link String} The text
+     */
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Get whether the clause is a single word, matched through the term dictionary instead of positions.
+     *
+     * @return {@code true} if the clause is a word, otherwise {@code false}
+     */
+    boolean isWord() {
+        return minDistances == null;
+    }
+
+    /**
+     * Finds the files a phrase or proximity clause matches in an index with positions.
+     *
+     * @param index {@link TermIndex} The index
+     * @return {@link PostingsList} The matched files with the number of matches in each, or {@code null} if there is
+     * none
+     */
+    PostingsList findMatches(final TermIndex index) {
+        final PostingsList[] postings = new PostingsList[terms.size()];
+
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = index.getPostings(terms.get(i));
+
+            if (postings[i] == null) {
+                return null;
+            }
+        }
+
+        final PostingsCursor[] cursors = Arrays.stream(postings).map(PostingsList::cursor).toArray(PostingsCursor[]::new);
+        final int[] order = IntStream.range(0, postings.length).boxed()
+                .sorted(Comparator.comparingInt(i -> postings[i].size())).mapToInt(Integer::intValue).toArray();
+        final int[][] positions = new int[postings.length][16];
+        final Postings matches = new Postings();
+        int target = 0;
+
+        while (true) {
+            final int documentId = cursors[order[0]].advance(target);
+
+            if (documentId == PostingsCursor.NO_MORE_DOCUMENTS) {
+                break;
+            }
+
+            // Leapfrog: the rarest term leads, and the first cursor to overshoot sets the next target.
+            target = documentId;
+            for (int i = 1; i < order.length && target == documentId; i++) {
+                target = cursors[order[i]].advance(documentId);
+            }
+
+            if (target == documentId) {
+                final int count = countMatches(cursors, positions);
+
+                if (count > 0) {
+                    matches.add(documentId, count);
+                }
+                target = documentId + 1;
+            }
+        }
+
+        return matches.size() == 0 ? null : matches;
+    }
+
+    /**
+     * Counts the matches in the file all the cursors are on: the positions of the last term that end a chain of
+     * positions, one per term, each within its allowed distances from the previous one. The valid positions of every
+     * term are found by merging its position list with the valid positions of the previous term.
+     */
+    private int countMatches(final PostingsCursor[] cursors, final int[][] positions) {
+        int validCount = 0;
+
+        for (int i = 0; i < cursors.length; i++) {
+            final int frequency = cursors[i].frequency();
+
+            if (positions[i].length < frequency) {
+                positions[i] = new int[Math.max(positions[i].length * 2, frequency)];
+            }
+            for (int j = 0; j < frequency; j++) {
+                positions[i][j] = cursors[i].nextPosition();
+            }
+
+            if (i == 0) {
+                validCount = frequency;
+                continue;
+            }
+
+            final int[] previous = positions[i - 1];
+            final int[] current = positions[i];
+            int count = 0;
+
+            for (int j = 0, p = 0; j < frequency; j++) {
+                final int position = current[j];
+
+                while (p < validCount && previous[p] < position - maxDistances[i - 1]) {
+                    p++;
+                }
+
+                // The same occurrence cannot stand for two terms of the chain.
+                final int candidate = p < validCount && previous[p] == position ? p + 1 : p;
+
+                if (candidate < validCount && previous[candidate] <= position - minDistances[i - 1]) {
+                    current[count++] = position;
+                }
+            }
+
+            validCount = count;
+            if (validCount == 0) {
+                return 0;
+            }
+        }
+
+        return validCount;
+    }
+}
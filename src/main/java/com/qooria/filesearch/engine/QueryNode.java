@@ -0,0 +1,346 @@
+package com.qooria.filesearch.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Node of the operator tree of a Boolean query: a clause, or the {@code AND}, {@code OR} or {@code NOT} of other nodes.
+ * <p>
+ * The tree compiles to a {@link DocumentIterator} over the postings of the clauses. An {@code AND} leapfrogs over its
+ * parts from the most to the least selective one, moving every part with {@link PostingsCursor#advance(int)} so that
+ * compressed postings skip whole blocks, and the parts under {@code NOT} are only advanced to the files found by the
+ * others to exclude them. An {@code OR} merges its parts.
+ * <p>
+ * The string of a node is the canonical form of the query it stands for, with every group in parentheses.
+ */
+abstract class QueryNode {
+    private static final int NO_DOCUMENT = -1;
+
+    /**
+     * Compiles the node to an iterator over the files it matches.
+     *
+     * @param postings      {@link Map} of every clause of the query to its postings, {@code null} standing for a clause
+     *                      found in no file
+     * @param documentCount The number of indexed files, which a negation alone matches all but some of
+     * @return {@link DocumentIterator} The iterator
+     */
+    abstract DocumentIterator iterator(Map<QueryClause, PostingsList> postings, int documentCount);
+
+    /**
+     * Checks if the node is a negation, which excludes files from the nodes it is combined with.
+     *
+     * @return {@code true} if the node is a negation, otherwise {@code false}
+     */
+    boolean isNegation() {
+        return false;
+    }
+
+    /**
+     * Creates a node matching the files a clause occurs in.
+     *
+     * @param clause {@link QueryClause} The clause
+     * @return {@link QueryNode} The node
+     */
+    static QueryNode clause(final QueryClause clause) {
+        return new QueryNode() {
+            @Override
+            public String toString() {
+                return clause.getText();
+            }
+
+            @Override
+            DocumentIterator iterator(final Map<QueryClause, PostingsList> postings, final int documentCount) {
+                return new CursorIterator(postings.get(clause) == null ? new Postings(0) : postings.get(clause));
+            }
+        };
+    }
+
+    /**
+     * Creates a node matching the files all of some nodes match.
+     *
+     * @param nodes {@link List} of {@link QueryNode} The nodes, the negations among which exclude files
+     * @return {@link QueryNode} The node
+     */
+    static QueryNode and(final List<QueryNode> nodes) {
+        return new QueryNode() {
+            @Override
+            public String toString() {
+                return nodes.stream().map(QueryNode::toString).collect(Collectors.joining(" AND ", "(", ")"));
+            }
+
+            @Override
+            DocumentIterator iterator(final Map<QueryClause, PostingsList> postings, final int documentCount) {
+                final List<DocumentIterator> required = new ArrayList<>();
+                final List<DocumentIterator> excluded = new ArrayList<>();
+
+                for (QueryNode node : nodes) {
+                    if (node.isNegation()) {
+                        excluded.add(((Not) node).node.iterator(postings, documentCount));
+                    } else {
+                        required.add(node.iterator(postings, documentCount));
+                    }
+                }
+
+                DocumentIterator iterator = required.isEmpty() ? new AllIterator(documentCount)
+                        : required.size() == 1 ? required.get(0) : new AndIterator(required);
+
+                return excluded.isEmpty() ? iterator
+                        : new ExcludingIterator(iterator, excluded.size() == 1 ? excluded.get(0) : new OrIterator(excluded));
+            }
+        };
+    }
+
+    /**
+     * Creates a node matching the files any of some nodes match.
+     *
+     * @param nodes {@link List} of {@link QueryNode} The nodes
+     * @return {@link QueryNode} The node
+     */
+    static QueryNode or(final List<QueryNode> nodes) {
+        return new QueryNode() {
+            @Override
+            public String toString() {
+                return nodes.stream().map(QueryNode::toString).collect(Collectors.joining(" OR ", "(", ")"));
+            }
+
+            @Override
+            DocumentIterator iterator(final Map<QueryClause, PostingsList> postings, final int documentCount) {
+                final List<DocumentIterator> iterators = new ArrayList<>();
+                nodes.forEach(node -> iterators.add(node.iterator(postings, documentCount)));
+                return iterators.size() == 1 ? iterators.get(0) : new OrIterator(iterators);
+            }
+        };
+    }
+
+    /**
+     * Creates a node matching the files another node does not match.
+     *
+     * @param node {@link QueryNode} The negated node
+     * @return {@link QueryNode} The node
+     */
+    static QueryNode not(final QueryNode node) {
+        return new Not(node);
+    }
+
+    private static final class Not extends QueryNode {
+        private final QueryNode node;
+
+        private Not(final QueryNode node) {
+            this.node = node;
+        }
+
+        @Override
+        boolean isNegation() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + node;
+        }
+
+        @Override
+        DocumentIterator iterator(final Map<QueryClause, PostingsList> postings, final int documentCount) {
+            return new ExcludingIterator(new AllIterator(documentCount), node.iterator(postings, documentCount));
+        }
+    }
+
+    private static final class CursorIterator implements DocumentIterator {
+        private final PostingsCursor cursor;
+        private final long cost;
+
+        private CursorIterator(final PostingsList postings) {
+            this.cursor = postings.cursor();
+            this.cost = postings.size();
+        }
+
+        @Override
+        public int documentId() {
+            return cursor.documentId();
+        }
+
+        @Override
+        public int next() {
+            return cursor.next();
+        }
+
+        @Override
+        public int advance(final int target) {
+            return cursor.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return cost;
+        }
+    }
+
+    private static final class AllIterator implements DocumentIterator {
+        private final int documentCount;
+        private int documentId = NO_DOCUMENT;
+
+        private AllIterator(final int documentCount) {
+            this.documentCount = documentCount;
+        }
+
+        @Override
+        public int documentId() {
+            return documentId;
+        }
+
+        @Override
+        public int next() {
+            return advance(documentId + 1);
+        }
+
+        @Override
+        public int advance(final int target) {
+            if (documentId < target) {
+                documentId = target < documentCount ? target : PostingsCursor.NO_MORE_DOCUMENTS;
+            }
+            return documentId;
+        }
+
+        @Override
+        public long cost() {
+            return documentCount;
+        }
+    }
+
+    /**
+     * Intersection, led by the part yielding the fewest files. The first part to overshoot a candidate file sets the
+     * next one, which the others then skip to.
+     */
+    private static final class AndIterator implements DocumentIterator {
+        private final DocumentIterator[] iterators;
+        private int documentId = NO_DOCUMENT;
+
+        private AndIterator(final List<DocumentIterator> iterators) {
+            this.iterators = iterators.toArray(new DocumentIterator[0]);
+            Arrays.sort(this.iterators, Comparator.comparingLong(DocumentIterator::cost));
+        }
+
+        @Override
+        public int documentId() {
+            return documentId;
+        }
+
+        @Override
+        public int next() {
+            return advance(documentId + 1);
+        }
+
+        @Override
+        public int advance(final int target) {
+            if (documentId >= target) {
+                return documentId;
+            }
+
+            int candidate = iterators[0].advance(target);
+
+            for (int i = 1; i < iterators.length && candidate != PostingsCursor.NO_MORE_DOCUMENTS; ) {
+                final int reached = iterators[i].advance(candidate);
+
+                if (reached == candidate) {
+                    i++;
+                } else {
+                    candidate = iterators[0].advance(reached);
+                    i = 1;
+                }
+            }
+
+            return documentId = candidate;
+        }
+
+        @Override
+        public long cost() {
+            return iterators[0].cost();
+        }
+    }
+
+    private static final class OrIterator implements DocumentIterator {
+        private final DocumentIterator[] iterators;
+        private int documentId = NO_DOCUMENT;
+
+        private OrIterator(final List<DocumentIterator> iterators) {
+            this.iterators = iterators.toArray(new DocumentIterator[0]);
+        }
+
+        @Override
+        public int documentId() {
+            return documentId;
+        }
+
+        @Override
+        public int next() {
+            return advance(documentId + 1);
+        }
+
+        @Override
+        public int advance(final int target) {
+            if (documentId >= target) {
+                return documentId;
+            }
+
+            int next = PostingsCursor.NO_MORE_DOCUMENTS;
+
+            for (DocumentIterator iterator : iterators) {
+                next = Math.min(next, iterator.documentId() >= target ? iterator.documentId() : iterator.advance(target));
+            }
+
+            return documentId = next;
+        }
+
+        @Override
+        public long cost() {
+            long cost = 0;
+            for (DocumentIterator iterator : iterators) {
+                cost += iterator.cost();
+            }
+            return cost;
+        }
+    }
+
+    /**
+     * Files of one iterator that another does not yield, the latter only being advanced to the files of the former.
+     */
+    private static final class ExcludingIterator implements DocumentIterator {
+        private final DocumentIterator included;
+        private final DocumentIterator excluded;
+
+        private ExcludingIterator(final DocumentIterator included, final DocumentIterator excluded) {
+            this.included = included;
+            this.excluded = excluded;
+        }
+
+        @Override
+        public int documentId() {
+            return included.documentId();
+        }
+
+        @Override
+        public int next() {
+            return advance(included.documentId() + 1);
+        }
+
+        @Override
+        public int advance(final int target) {
+            int documentId = included.advance(target);
+
+            while (documentId != PostingsCursor.NO_MORE_DOCUMENTS && excluded.advance(documentId) == documentId) {
+                documentId = included.next();
+            }
+
+            return documentId;
+        }
+
+        @Override
+        public long cost() {
+            return included.cost();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.common.SearchUtil;
+import com.qooria.filesearch.common.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses a search query into a {@link Query}.
+ * <p>
+ * The query is split on spaces, double quotes and parentheses. Text between double quotes is a phrase, and two words
+ * joined by {@code NEAR/k} must occur at most {@code k} terms apart, in either order; joins can be chained, as in
+ * {@code a NEAR/3 b NEAR/3 c}. Any other part of the query is sanitized and is a word if it is made of letters and
+ * digits only, so a query without quotes, joins, parentheses or operators has the same words as before phrases were
+ * supported. A parenthesis used to be deleted like any other punctuation, so {@code foo(bar)} was the single word
+ * {@code foobar}; it is now the words {@code foo} and {@code bar}.
+ * <p>
+ * Clauses are combined with the operators {@code AND}, {@code OR} and {@code NOT}, written in upper case, and grouped
+ * with parentheses. {@code NOT} binds tightest and {@code OR} loosest, and clauses next to each other are joined by
+ * {@code OR}. A negated clause excludes files from the group it appears in, so {@code a NOT b} matches the files
+ * containing {@code a} but not {@code b}.
+ */
+final class QueryParser {
+    private static final Pattern NEAR_OPERATOR = Pattern.compile("NEAR/(\\d{1,9})");
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String NOT = "NOT";
+    private static final String OPEN = "(";
+    private static final String CLOSE = ")";
+    private static final char QUOTE = '"';
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Boolean> phrases = new ArrayList<>();
+    private final Map<String, QueryClause> clauses = new LinkedHashMap<>();
+    private final Set<String> scoredClauses = new HashSet<>();
+    private final boolean caseSensitive;
+    private int position;
+    private int groupDepth;
+    private int negationDepth;
+    private boolean isBoolean;
+
+    private QueryParser(final boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    /**
+     * Parses a search query.
+     *
+     * @param query         {@link String} The search query
+     * @param caseSensitive Case sensitivity flag
+     * @return {@link Query} The parsed query, without clauses if the query has no word
+     * @throws IllegalArgumentException if a {@code NEAR/k} join does not join two single terms, an operator lacks an
+     *                                  operand or every clause is negated
+     */
+    static Query parse(final String query, final boolean caseSensitive) {
+        final QueryParser parser = new QueryParser(caseSensitive);
+        parser.split(query);
+
+        final QueryNode root = parser.parseOr();
+
+        final List<QueryClause> ordered = new ArrayList<>();
+        parser.clauses.values().stream().filter(c -> parser.scoredClauses.contains(c.getText())).forEach(ordered::add);
+        final int scoredClauseCount = ordered.size();
+        parser.clauses.values().stream().filter(c -> !parser.scoredClauses.contains(c.getText())).forEach(ordered::add);
+
+        if (scoredClauseCount == 0 && !ordered.isEmpty()) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_QUERY.getMessage());
+        }
+
+        return new Query(ordered, scoredClauseCount, parser.isBoolean ? root : null);
+    }
+
+    /**
+     * Parses clauses joined by {@code OR} or next to each other, up to the end of the query or of the current group. A
+     * closing parenthesis outside any group is ignored.
+     */
+    private QueryNode parseOr() {
+        final List<QueryNode> nodes = new ArrayList<>();
+        final List<QueryNode> negations = new ArrayList<>();
+
+        while (position < tokens.size()) {
+            if (isToken(CLOSE)) {
+                if (groupDepth > 0) {
+                    break;
+                }
+                position++;
+                continue;
+            }
+
+            if (isToken(OR)) {
+                position++;
+                requireOperand();
+            }
+
+            final QueryNode node = parseAnd();
+
+            if (node != null && node.isNegation()) {
+                negations.add(node);
+            } else if (node != null) {
+                nodes.add(node);
+            }
+        }
+
+        if (negations.isEmpty()) {
+            return nodes.isEmpty() ? null : QueryNode.or(nodes);
+        }
+
+        if (!nodes.isEmpty()) {
+            negations.add(0, QueryNode.or(nodes));
+        }
+        return QueryNode.and(negations);
+    }
+
+    /**
+     * Parses clauses joined by {@code AND}.
+     */
+    private QueryNode parseAnd() {
+        final List<QueryNode> nodes = new ArrayList<>();
+        QueryNode node = parseUnary();
+
+        while (true) {
+            if (node != null) {
+                nodes.add(node);
+            }
+            if (!isToken(AND)) {
+                break;
+            }
+
+            isBoolean = true;
+            position++;
+            requireOperand();
+            node = parseUnary();
+        }
+
+        if (nodes.isEmpty()) {
+            return null;
+        }
+        return nodes.size() == 1 ? nodes.get(0) : QueryNode.and(nodes);
+    }
+
+    private QueryNode parseUnary() {
+        requireOperand();
+
+        if (!isToken(NOT)) {
+            return parsePrimary();
+        }
+
+        isBoolean = true;
+        position++;
+        negationDepth++;
+        final QueryNode node = parseUnary();
+        negationDepth--;
+
+        return node == null ? null : QueryNode.not(node);
+    }
+
+    /**
+     * Parses a group or a clause, the latter being {@code null} if it has no word.
+     */
+    private QueryNode parsePrimary() {
+        if (isToken(OPEN)) {
+            position++;
+            groupDepth++;
+            final QueryNode node = position < tokens.size() ? parseOr() : null;
+            groupDepth--;
+
+            if (isToken(CLOSE)) {
+                position++;
+            }
+            return node;
+        }
+
+        final int i = position++;
+
+        if (phrases.get(i)) {
+            final List<String> terms = Tokenizer.splitTerms(tokens.get(i), caseSensitive);
+
+            if (terms.size() > 1) {
+                return add(QueryClause.phrase(terms));
+            }
+            return terms.size() == 1 ? add(QueryClause.word(terms.get(0))) : null;
+        }
+
+        if (isNearOperator(i + 1)) {
+            final List<String> terms = new ArrayList<>();
+            final List<Integer> distances = new ArrayList<>();
+            terms.add(getSingleTerm(i));
+
+            for (; isNearOperator(position); position += 2) {
+                final Matcher operator = NEAR_OPERATOR.matcher(tokens.get(position));
+                operator.matches();
+                distances.add(Integer.parseInt(operator.group(1)));
+                terms.add(getSingleTerm(position + 1));
+            }
+
+            return add(QueryClause.near(terms, distances.stream().mapToInt(Integer::intValue).toArray()));
+        }
+
+        if (isNearOperator(i)) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_QUERY.getMessage());
+        }
+
+        final List<String> words = Tokenizer.splitWords(SearchUtil.sanitize(tokens.get(i), caseSensitive));
+        return words.isEmpty() ? null : add(QueryClause.word(words.get(0)));
+    }
+
+    /**
+     * Splits a query into its phrases and the parts between them, themselves split on spaces and parentheses.
+     */
+    private void split(final String query) {
+        final StringBuilder token = new StringBuilder();
+        boolean inPhrase = false;
+
+        for (int i = 0; i <= query.length(); i++) {
+            final char c = i < query.length() ? query.charAt(i) : QUOTE;
+            final boolean isParenthesis = !inPhrase && (c == '(' || c == ')');
+
+            if (c == QUOTE || isParenthesis || (c == ' ' && !inPhrase)) {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    phrases.add(inPhrase);
+                    token.setLength(0);
+                }
+                if (isParenthesis) {
+                    tokens.add(String.valueOf(c));
+                    phrases.add(false);
+                }
+                inPhrase = c == QUOTE ? i < query.length() && !inPhrase : inPhrase;
+            } else {
+                token.append(c);
+            }
+        }
+    }
+
+    /**
+     * Fails if the query or the current group ends, or another operator follows, where an operand is expected.
+     */
+    private void requireOperand() {
+        if (position >= tokens.size() || isToken(AND) || isToken(OR) || (isToken(CLOSE) && groupDepth > 0)) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_QUERY.getMessage());
+        }
+    }
+
+    private boolean isToken(final String operator) {
+        return position < tokens.size() && !phrases.get(position) && tokens.get(position).equals(operator);
+    }
+
+    private boolean isNearOperator(final int index) {
+        return index < tokens.size() && !phrases.get(index) && NEAR_OPERATOR.matcher(tokens.get(index)).matches();
+    }
+
+    private String getSingleTerm(final int index) {
+        final List<String> terms = index < tokens.size() && !phrases.get(index) && !isNearOperator(index)
+                ? Tokenizer.splitTerms(tokens.get(index), caseSensitive) : new ArrayList<>();
+
+        if (terms.size() != 1) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_QUERY.getMessage());
+        }
+
+        return terms.get(0);
+    }
+
+    private QueryNode add(final QueryClause clause) {
+        final QueryClause existing = clauses.putIfAbsent(clause.getText(), clause);
+
+        if (negationDepth == 0) {
+            scoredClauses.add(clause.getText());
+        }
+
+        return QueryNode.clause(existing == null ? clause : existing);
+    }
+}
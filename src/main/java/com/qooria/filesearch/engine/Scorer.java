@@ -0,0 +1,34 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Ranking algorithm of search results, selected with {@link SearchOption.Builder#withScorer(Scorer)}.
+ * <p>
+ * A scorer only computes ranks: the score of a file is always the share of search words it contains. Scorers must be
+ * safe for concurrent use, keeping the state of a search in its {@link DocumentScorer}.
+ */
+public interface Scorer {
+
+    /**
+     * Starts ranking the files matching the words of a search.
+     *
+     * @param index    {@link TermIndex} The searched index, with its collection statistics
+     * @param postings Array of {@link PostingsList} The postings of every search word, in word order, {@code null}
+     *                 standing for a word found in no file
+     * @return {@link DocumentScorer} The scorer of the matched files of this search
+     */
+    DocumentScorer newDocumentScorer(TermIndex index, PostingsList[] postings);
+
+    /**
+     * Starts ranking the files matching the words of a search in exact arithmetic, which the engine does unless fast
+     * ranking is selected with {@link SearchOption.Builder#withFastRanking(boolean)}. Scorers whose {@code double}
+     * ranks are the intended ones keep the default, the scorer of {@link #newDocumentScorer(TermIndex, PostingsList[])}.
+     *
+     * @param index    {@link TermIndex} The searched index, with its collection statistics
+     * @param postings Array of {@link PostingsList} The postings of every search word, in word order, {@code null}
+     *                 standing for a word found in no file
+     * @return {@link DocumentScorer} The scorer of the matched files of this search
+     */
+    default DocumentScorer newExactDocumentScorer(final TermIndex index, final PostingsList[] postings) {
+        return newDocumentScorer(index, postings);
+    }
+}
@@ -2,7 +2,6 @@ package com.qooria.filesearch.engine;
 
 import com.qooria.filesearch.dto.FileResult;
 import com.qooria.filesearch.dto.IndexedFile;
-import com.qooria.filesearch.dto.Keyword;
 import com.qooria.filesearch.common.ConsoleMessage;
 import com.qooria.filesearch.common.SearchUtil;
 
@@ -10,32 +9,34 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
  * Search engine.
+ * <p>
+ * The engine is safe for concurrent use. The indexed files and their index are held in an immutable snapshot that
+ * indexing replaces as a whole, so searches take no lock and always see a complete index, while all scoring state
+ * belongs to the search in progress. Indexing methods are serialized with one another.
  */
 public class SearchEngine {
-    private static final String WORD_PATTERN = "^[a-zA-Z0-9]*$";
-    private static final String SPACE_PATTERN = "\\s+";
-    private static final int WEIGHT_FACTOR = 100;
     private static final int INITIAL_FILE_SCORE = 0;
-    private static final BigDecimal INITIAL_FILE_RANK = BigDecimal.valueOf(0.25);
-    private static final BigDecimal INITIAL_DAMPING_FACTOR = BigDecimal.valueOf(0.85);
-    private static final BigDecimal INITIAL_EMPHASIS_FACTOR = BigDecimal.valueOf(0.1);
-    private final List<IndexedFile> files;
-
+    private static final double MAX_RANK_TOLERANCE = 1 + 1e-9;
     private final SearchOption options;
+    private final QueryCache queryCache;
+    private final SearchMetrics metrics;
+    private volatile IndexSnapshot snapshot;
 
     /**
      * Construction to initialize search option field.
@@ -43,8 +44,23 @@ public class SearchEngine {
      * @param options {@link SearchOption} Search options
      */
     public SearchEngine(final SearchOption options) {
+        this(options, true);
+    }
+
+    /**
+     * Constructor to initialize search option field, and whether results are cached and metrics recorded as the
+     * options say. The shards of a {@link ShardedSearchEngine} do neither, their searches going through
+     * {@link #prepare(Query, IndexSnapshot)} and their files being walked by the sharded engine.
+     *
+     * @param options      {@link SearchOption} Search options
+     * @param isStandalone {@code false} for a shard, which caches no results and records no metrics
+     */
+    SearchEngine(final SearchOption options, final boolean isStandalone) {
         this.options = options;
-        files = new ArrayList<>();
+        this.queryCache = isStandalone && options.getQueryCacheSize() > 0
+                ? new QueryCache(options.getQueryCacheSize(), options.getQueryCacheBytes()) : null;
+        this.metrics = new SearchMetrics(queryCache, isStandalone);
+        snapshot = IndexSnapshot.EMPTY;
     }
 
     /**
@@ -53,45 +69,120 @@ public class SearchEngine {
      * @param dir {@link String} The directory
      * @return {@link List} of {@link FileResult} Indexing result
      */
-    public List<IndexedFile> indexDirectory(String dir) throws FileNotFoundException {
-        if (dir == null || dir.trim().length() == 0) {
+    public synchronized List<IndexedFile> indexDirectory(String dir) throws FileNotFoundException {
+        return index(dir, false);
+    }
+
+    /**
+     * Method to bring the index up to date with a directory. Only the files that were added or whose modification time
+     * or size changed since they were indexed are read again; the postings of the other files are kept. Afterwards the
+     * engine holds the same files, in the same order, as a new engine indexing the directory would, and files outside
+     * of the directory are no longer indexed.
+     * <p>
+     * Searches running meanwhile keep using the previous index until the update is complete.
+     *
+     * @param dir {@link String} The directory
+     * @return {@link List} of {@link IndexedFile} The indexed files
+     */
+    public synchronized List<IndexedFile> updateDirectory(String dir) throws FileNotFoundException {
+        return index(dir, true);
+    }
+
+    /**
+     * Method to write the index of the indexed files to a file, to be loaded later with {@link #loadIndex(String)}.
+     * The index is written next to the file first and then moved over it, so the file can be the one the index was
+     * loaded from, which stays mapped meanwhile.
+     *
+     * @param indexFile {@link String} The index file
+     */
+    public void writeIndex(final String indexFile) throws IOException {
+        if (indexFile == null || indexFile.trim().length() == 0) {
             throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
         }
 
-        final File dirFile = new File(dir);
+        final IndexSnapshot current = snapshot;
+        final Path path = Paths.get(indexFile).toAbsolutePath();
+        final Path temporaryFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
 
-        if (!dirFile.exists()) {
+        try {
+            MappedIndex.write(current.getIndex(), current.getDocuments(), options.isCaseSensitive(), temporaryFile);
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Method to load an index written by {@link #writeIndex(String)} instead of indexing a directory. The index file is
+     * memory-mapped and replaces the files indexed so far. It can be brought up to date with
+     * {@link #updateDirectory(String)}.
+     *
+     * @param indexFile {@link String} The index file
+     * @return {@link List} of {@link IndexedFile} The indexed files, without content
+     */
+    public synchronized List<IndexedFile> loadIndex(final String indexFile) throws IOException {
+        if (indexFile == null || indexFile.trim().length() == 0) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
+        final File file = new File(indexFile);
+
+        if (!file.isFile()) {
             throw new FileNotFoundException(ConsoleMessage.FILE_NOT_FOUND.getMessage());
         }
 
-        Path directory = dirFile.toPath();
+        final long loadStart = System.nanoTime();
+        final MappedIndex mappedIndex = MappedIndex.open(file.toPath());
 
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
-            for (Path path : stream) {
-                File file = path.toFile();
+        if (mappedIndex.isCaseSensitive() != options.isCaseSensitive()) {
+            throw new IllegalArgumentException(ConsoleMessage.INDEX_CASE_SENSITIVITY_MISMATCH.getMessage());
+        }
 
-                if (Files.isDirectory(path)) {
-                    indexDirectory(path.toString());
-                } else if (SearchUtil.isTextFile(file)) {
-                    String content = SearchUtil.readFileContent(file);
-                    content = options.isCaseSensitive() ? content : SearchUtil.sanitize(content, false);
-                    files.add(new IndexedFile(file.getAbsolutePath(), content));
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (mappedIndex.hasPositions() != options.isIndexPositions()) {
+            throw new IllegalArgumentException(ConsoleMessage.INDEX_POSITIONS_MISMATCH.getMessage());
         }
 
-        return files;
+        setSnapshot(new IndexSnapshot(mappedIndex, mappedIndex));
+        metrics.recordLoad(System.nanoTime() - loadStart);
+
+        return getIndexedFiles();
     }
 
     /**
-     * Get the list of indexed files.
+     * Get the list of indexed files. The files are kept in a compact table, and the list is a view creating them as
+     * they are read.
      *
      * @return {@link List} of {@link IndexedFile} Indexed file list
      */
     public List<IndexedFile> getIndexedFiles() {
-        return files;
+        return snapshot.getDocuments().getFiles();
+    }
+
+    /**
+     * Get the inverted index of the indexed files.
+     *
+     * @return {@link TermIndex} The inverted index
+     */
+    public TermIndex getIndex() {
+        return snapshot.getIndex();
+    }
+
+    /**
+     * Get the cache of search results.
+     *
+     * @return {@link QueryCache} The cache, or {@code null} if results are not cached
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * Get the metrics of the indexing and searches of the engine.
+     *
+     * @return {@link SearchMetrics} The metrics
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -104,82 +195,402 @@ public class SearchEngine {
     }
 
     /**
-     * Searches for term in indexed file list.
+     * Searches for term in indexed file list. Words are matched separately, text between double quotes as a phrase and
+     * words joined by {@code NEAR/k} within {@code k} terms of each other, the latter two only with
+     * {@link SearchOption#isIndexPositions()}. Clauses can be combined with {@code AND}, {@code OR} and {@code NOT} and
+     * grouped with parentheses, only the clauses outside {@code NOT} being scored.
      *
      * @param term {@link String} The search term
      * @return {@link List} of {@link FileResult} Search result
      */
     public List<FileResult> search(final String term) {
+        return search(term, options.getMaxResultCount(), snapshot);
+    }
+
+    /**
+     * Searches for term in indexed file list like {@link #search(String)}, returning up to a given number of files
+     * instead of {@link SearchOption#getMaxResultCount()}.
+     *
+     * @param term           {@link String} The search term
+     * @param maxResultCount The maximum number of files returned
+     * @return {@link List} of {@link FileResult} Search result
+     */
+    public List<FileResult> search(final String term, final int maxResultCount) {
+        return search(term, maxResultCount, snapshot);
+    }
+
+    /**
+     * Searches for several terms in parallel, all against the same index even if it is updated meanwhile.
+     *
+     * @param terms    {@link List} of {@link String} The search terms
+     * @param executor {@link Executor} The executor running the searches
+     * @return {@link List} of the search results of each term, in the order of the terms
+     */
+    public List<List<FileResult>> search(final List<String> terms, final Executor executor) {
+        final IndexSnapshot current = snapshot;
+        final List<CompletableFuture<List<FileResult>>> searches = terms
+                .stream()
+                .map(term -> CompletableFuture.supplyAsync(() -> search(term, options.getMaxResultCount(), current), executor))
+                .collect(Collectors.toList());
+
+        try {
+            return searches.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private List<FileResult> search(final String term, final int maxResultCount, final IndexSnapshot snapshot) {
+        final long start = System.nanoTime();
+        final Query query = parse(term, options);
+        // Query keys are made of terms, so the count ahead of a '#' cannot be mistaken for part of a key.
+        final String key = maxResultCount == options.getMaxResultCount() ? query.getKey() : maxResultCount + "#" + query.getKey();
+        final List<FileResult> cachedResults = queryCache == null ? null : queryCache.get(key, snapshot);
+
+        if (cachedResults != null) {
+            metrics.recordQuery(System.nanoTime() - start);
+            return cachedResults;
+        }
+
+        final List<FileResult> results = search(prepare(query, snapshot), null, maxResultCount);
+        metrics.recordQuery(System.nanoTime() - start);
+        return queryCache == null ? results : queryCache.put(key, snapshot, results);
+    }
+
+    /**
+     * Parses a search term.
+     *
+     * @param term    {@link String} The search term
+     * @param options {@link SearchOption} The search options
+     * @return {@link Query} The query, with at least one clause
+     * @throws IllegalArgumentException if the term has no word or is not a valid query
+     */
+    static Query parse(final String term, final SearchOption options) {
         String searchTerm = SearchUtil.sanitize(term, options.isCaseSensitive());
 
         if (searchTerm == null || searchTerm.isEmpty()) {
             throw new IllegalArgumentException(ConsoleMessage.EMPTY_SEARCH_TERM.getMessage());
         }
 
-        final List<Keyword> words = Arrays.stream(searchTerm.split(SPACE_PATTERN))
-                .filter(this::isWord).distinct().map(Keyword::new).collect(Collectors.toList());
+        final Query query = QueryParser.parse(term, options.isCaseSensitive());
 
-        final int wordWeight = WEIGHT_FACTOR / words.size();
+        if (query.getClauses().isEmpty()) {
+            throw new IllegalArgumentException(ConsoleMessage.EMPTY_SEARCH_TERM.getMessage());
+        }
 
-        List<FileResult> files = getIndexedFiles()
-                .stream()
-                .map(f -> new FileResult(INITIAL_FILE_SCORE, INITIAL_FILE_RANK, f.getPath(), f.getContent()))
-                .collect(Collectors.toList());
+        return query;
+    }
 
-        files.forEach(file -> words.forEach(word -> searchInFile(words, word, file, wordWeight)));
+    /**
+     * Collects the postings of the clauses of a query from an index of this engine, as the first phase of a search
+     * whose collection statistics are gathered from several engines.
+     *
+     * @param query    {@link Query} The query
+     * @param snapshot {@link IndexSnapshot} The index searched, built by an {@link Update} of this engine
+     * @return {@link PreparedSearch} The query with its postings
+     */
+    PreparedSearch prepare(final Query query, final IndexSnapshot snapshot) {
+        return new PreparedSearch(query, snapshot, getPostings(snapshot.getIndex(), query.getClauses()));
+    }
 
-        files.sort(Comparator.comparing(FileResult::getRank).reversed());
+    /**
+     * Ranks the files matching a prepared query.
+     *
+     * @param search     {@link PreparedSearch} The prepared query
+     * @param statistics     {@link CollectionStatistics} The statistics ranks are computed with, {@code null} for those
+     *                       of the index the query was prepared against
+     * @param maxResultCount The maximum number of files returned
+     * @return {@link List} of {@link FileResult} The best ranked files, best first
+     */
+    List<FileResult> search(final PreparedSearch search, final CollectionStatistics statistics, final int maxResultCount) {
+        final Query query = search.getQuery();
+        final IndexSnapshot snapshot = search.getSnapshot();
+        final int wordCount = query.getScoredClauseCount();
+        final int wordWeight = EmphasisScorer.WEIGHT_FACTOR / wordCount;
+        final PostingsList[] clausePostings = search.getPostings();
+        final PostingsList[] postings = Arrays.copyOf(clausePostings, wordCount);
 
-        return files
-                .stream()
-                .filter(f -> f.getScore() > 0)
-                .limit(options.getMaxResultCount())
-                .collect(Collectors.toList());
+        // Files must be visited in index order: the emphasis of a word carries over from one file to the next.
+        final MatchedDocuments documents = new MatchedDocuments(postings, query.iterator(clausePostings, snapshot.getIndex().getDocumentCount()));
+        final TermIndex index = statistics == null ? snapshot.getIndex() : statistics.apply(snapshot.getIndex());
+        final PostingsList[] scoredPostings = statistics == null ? postings : statistics.apply(postings);
+        final DocumentScorer scorer = options.isFastRanking() ? options.getScorer().newDocumentScorer(index, scoredPostings)
+                : options.getScorer().newExactDocumentScorer(index, scoredPostings);
+
+        return rank(snapshot, documents, wordWeight, scorer, maxResultCount);
     }
 
-    private int getFrequency(String word, String content) {
-        int index = content.indexOf(word);
-        int count = 0;
-        while (index != -1) {
-            count++;
-            content = content.substring(index + 1);
-            index = content.indexOf(word);
+    /**
+     * Ranks the matched files with a {@link DocumentScorer}, exactly if it ranks exactly. Scores and ranks are kept in
+     * {@link TopDocuments}, and a {@link FileResult} is only created for the files returned. If the scorer bounds the
+     * rank of every word, the files that cannot outrank the worst file kept are skipped: later files rank after the
+     * files they tie with, having higher ids.
+     */
+    private List<FileResult> rank(IndexSnapshot snapshot, MatchedDocuments documents, int weight, DocumentScorer scorer, int maxResultCount) {
+        final int[] frequencies = new int[documents.getListCount()];
+        final double[] maxRanks = new double[frequencies.length];
+        final TopDocuments topDocuments = new TopDocuments(Math.min(maxResultCount, snapshot.getDocuments().getDocumentCount()));
+        boolean isBounded = true;
+        long matched = 0;
+
+        for (int i = 0; i < maxRanks.length; i++) {
+            // Bounds are summed in another order than ranks, so they are widened to absorb rounding errors.
+            maxRanks[i] = scorer.getMaxRank(i) * MAX_RANK_TOLERANCE;
+            isBounded &= maxRanks[i] != Double.POSITIVE_INFINITY;
+        }
+
+        while (isBounded ? documents.next(maxRanks, topDocuments.getThreshold()) : documents.next()) {
+            int score = INITIAL_FILE_SCORE;
+            matched++;
+
+            for (int i = 0; i < frequencies.length; i++) {
+                frequencies[i] = documents.getFrequency(i);
+
+                if (frequencies[i] > 0) {
+                    score += weight;
+                }
+            }
+
+            final BigDecimal exactRank = scorer.isExact() ? scorer.rankExactly(documents.getDocumentId(), frequencies) : null;
+            final double rank = exactRank != null ? exactRank.doubleValue() : scorer.rank(documents.getDocumentId(), frequencies);
+
+            if (score > 0) {
+                topDocuments.offer(documents.getDocumentId(), score, rank, exactRank);
+            }
         }
-        return count;
+
+        metrics.recordDocumentsMatched(matched);
+        topDocuments.sort();
+        final List<FileResult> files = new ArrayList<>(topDocuments.size());
+
+        for (int i = 0; i < topDocuments.size(); i++) {
+            final int documentId = topDocuments.getDocumentId(i);
+            final BigDecimal rank = topDocuments.getExactRank(i) != null ? topDocuments.getExactRank(i)
+                    : BigDecimal.valueOf(topDocuments.getRank(i));
+            files.add(new FileResult(topDocuments.getScore(i), rank,
+                    snapshot.getDocuments().getPath(documentId), snapshot.getDocuments().getContent(documentId)));
+        }
+
+        return files;
     }
 
-    private void searchInFile(List<Keyword> words, Keyword word, FileResult file, int weight) {
-        Keyword prev = null;
-        int currentIndex = 0;
+    /**
+     * Collects, for every clause, the files it occurs in with its frequency in each. Phrases and proximity clauses are
+     * matched through the positions of their terms. Words are collected from the postings of the indexed terms they
+     * occur in: whole words are looked up directly; otherwise every term of the dictionary is scanned once for all the
+     * words together.
+     */
+    private PostingsList[] getPostings(TermIndex index, List<QueryClause> clauses) {
+        final PostingsList[] postings = new PostingsList[clauses.size()];
+        final List<Integer> wordClauses = new ArrayList<>();
 
-        for (int i = 0; i < words.size(); i++) {
-            currentIndex = i;
-            Keyword current = words.get(currentIndex);
+        for (int i = 0; i < clauses.size(); i++) {
+            if (clauses.get(i).isWord()) {
+                wordClauses.add(i);
+            } else if (options.isIndexPositions()) {
+                postings[i] = clauses.get(i).findMatches(index);
+            } else {
+                throw new IllegalArgumentException(ConsoleMessage.POSITIONS_NOT_INDEXED.getMessage());
+            }
+        }
 
-            if (current.getWord().equalsIgnoreCase(word.getWord())) {
-                prev = words.get(currentIndex == 0 ? currentIndex : currentIndex - 1);
-                break;
+        if (options.isWholeWordMatch() || wordClauses.isEmpty()) {
+            for (int i : wordClauses) {
+                postings[i] = index.getPostings(clauses.get(i).getText());
             }
+
+            return postings;
         }
 
-        String content = file.getContent();
+        final KeywordMatcher matcher = new KeywordMatcher(wordClauses.stream().map(i -> clauses.get(i).getText()).collect(Collectors.toList()));
+        final int[] counts = new int[wordClauses.size()];
+        final Postings[] wordPostings = new Postings[wordClauses.size()];
+
+        for (int i = 0; i < wordPostings.length; i++) {
+            wordPostings[i] = new Postings();
+        }
 
-        if (content.contains(word.getWord())) {
-            int frequency = getFrequency(word.getWord(), content);
-            BigDecimal dampingFactor = INITIAL_DAMPING_FACTOR.divide(BigDecimal.valueOf(files.size()), RoundingMode.UP);
-            BigDecimal emphasis = (prev.getEmphasisFactor() == null ? INITIAL_EMPHASIS_FACTOR : prev.getEmphasisFactor()).multiply(dampingFactor);
-            BigDecimal rank = emphasis.multiply(BigDecimal.valueOf(frequency));
-            file.addScore(weight);
-            file.upRank(rank);
-            file.upRank(BigDecimal.valueOf(weight));
+        // Terms are matched as bytes and their postings fetched by ordinal, so the terms not matched create nothing.
+        index.forEachTerm((ordinal, term, length) -> {
+            if (matcher.count(term, length, counts) == 0) {
+                return;
+            }
+
+            final PostingsList termPostings = index.getPostings(ordinal);
+
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    final PostingsCursor cursor = termPostings.cursor();
+
+                    while (cursor.next() != PostingsCursor.NO_MORE_DOCUMENTS) {
+                        wordPostings[i].add(cursor.documentId(), counts[i] * cursor.frequency());
+                    }
+                    counts[i] = 0;
+                }
+            }
+        });
 
-            words.get(currentIndex).setEmphasisFactor(emphasis);
+        for (int i = 0; i < wordPostings.length; i++) {
+            postings[wordClauses.get(i)] = wordPostings[i].copy();
         }
+
+        return postings;
     }
 
-    private boolean isWord(String line) {
-        Pattern pattern = Pattern.compile(WORD_PATTERN, Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(line);
-        return matcher.matches();
+    private List<IndexedFile> index(final String dir, final boolean isReplacing) throws FileNotFoundException {
+        final File dirFile = getDirectory(dir);
+        final Update update = newUpdate(isReplacing);
+
+        final long walkStart = System.nanoTime();
+        new DirectoryWalker(options, metrics).walk(dirFile.toPath(), update::getUnchangedFile, update::add);
+
+        final long buildStart = System.nanoTime();
+        metrics.recordWalk(buildStart - walkStart);
+        update.apply();
+        metrics.recordBuild(System.nanoTime() - buildStart);
+
+        return getIndexedFiles();
+    }
+
+    /**
+     * Starts building a new index from the files of a walk, which a {@link ShardedSearchEngine} hands out to its shards.
+     * Updates are not serialized with the indexing methods, so an update must be applied before the next one starts.
+     *
+     * @param isReplacing {@code true} if the walked files replace the indexed ones, unchanged files keeping their
+     *                    postings, {@code false} if they are added to them
+     * @return {@link Update} The update, applied once every file is added
+     */
+    Update newUpdate(final boolean isReplacing) {
+        return new Update(isReplacing);
+    }
+
+    /**
+     * Replaces the index, dropping the cached results of the previous one.
+     */
+    private void setSnapshot(IndexSnapshot snapshot) {
+        this.snapshot = snapshot;
+
+        if (queryCache != null) {
+            queryCache.clear();
+        }
+    }
+
+    static File getDirectory(String dir) throws FileNotFoundException {
+        if (dir == null || dir.trim().length() == 0) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
+        final File dirFile = new File(dir);
+
+        if (!dirFile.exists()) {
+            throw new FileNotFoundException(ConsoleMessage.FILE_NOT_FOUND.getMessage());
+        }
+
+        return dirFile;
+    }
+
+    /**
+     * New index of the engine, built from the files of a walk against the snapshot current when it started.
+     * <p>
+     * Added files are numbered in the order they are added. When the files are added to the indexed ones, their
+     * postings go straight into the index being built. When they replace them, the postings of the unchanged files are
+     * only remapped to their new ids once the walk is complete, and the changed files are indexed then. As long as no
+     * file is inserted or removed before an unchanged file, the postings of the terms of unchanged files only are
+     * reused as they are, see {@link InvertedIndex.Builder#addIndex(TermIndex, int[])}.
+     */
+    final class Update {
+        private final IndexSnapshot current;
+        private final boolean isReplacing;
+        private final FileTable.Builder documents = FileTable.builder();
+        private final Map<String, Integer> currentIds = new HashMap<>();
+        private final Map<Integer, TokenizedFile> changedFiles = new HashMap<>();
+        private final int[] documentIds;
+        private final InvertedIndex.Builder indexBuilder = InvertedIndex.builder(options.isIndexPositions());
+        private IndexSnapshot built;
+
+        private Update(final boolean isReplacing) {
+            this.current = snapshot;
+            this.isReplacing = isReplacing;
+
+            final DocumentTable currentDocuments = current.getDocuments();
+            documentIds = new int[currentDocuments.getDocumentCount()];
+
+            if (isReplacing) {
+                for (int i = 0; i < currentDocuments.getDocumentCount(); i++) {
+                    currentIds.put(currentDocuments.getPath(i), i);
+                }
+                Arrays.fill(documentIds, -1);
+            } else {
+                documents.addAll(currentDocuments);
+
+                for (int i = 0; i < documentIds.length; i++) {
+                    documentIds[i] = i;
+                }
+                indexBuilder.addIndex(current.getIndex(), documentIds);
+            }
+        }
+
+        /**
+         * Get the indexed file of a file that does not have to be read again. It may be called from several threads at
+         * once.
+         *
+         * @param file {@link File} The walked file
+         * @return {@link IndexedFile} The file as indexed, or {@code null} if it has to be read
+         */
+        IndexedFile getUnchangedFile(final File file) {
+            final Integer id = isReplacing ? currentIds.get(file.getAbsolutePath()) : null;
+            final DocumentTable currentDocuments = current.getDocuments();
+            final boolean unchanged = id != null
+                    && currentDocuments.getLastModified(id) == file.lastModified()
+                    && currentDocuments.getSize(id) == file.length();
+            return unchanged ? currentDocuments.getFile(id) : null;
+        }
+
+        /**
+         * Adds a walked file, read or unchanged.
+         *
+         * @param file {@link TokenizedFile} The file
+         */
+        void add(final TokenizedFile file) {
+            metrics.recordFile(file);
+            final int documentId = documents.add(file.getFile());
+
+            if (!isReplacing) {
+                file.addTo(indexBuilder, documentId);
+            } else if (file.isRead()) {
+                changedFiles.put(documentId, file);
+            } else {
+                documentIds[currentIds.get(file.getFile().getPath())] = documentId;
+            }
+        }
+
+        /**
+         * Builds the index, without making it the index of the engine yet. It is built once, however often it is
+         * called.
+         *
+         * @return {@link IndexSnapshot} The new index
+         */
+        IndexSnapshot build() {
+            if (built == null) {
+                if (isReplacing) {
+                    indexBuilder.addIndex(current.getIndex(), documentIds);
+                    changedFiles.forEach((documentId, file) -> file.addTo(indexBuilder, documentId));
+                }
+
+                built = new IndexSnapshot(documents.build(), indexBuilder.build());
+            }
+
+            return built;
+        }
+
+        /**
+         * Builds the index and makes it the index of the engine.
+         */
+        void apply() {
+            setSnapshot(build());
+        }
     }
 }
@@ -0,0 +1,215 @@
+package com.qooria.filesearch.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the indexing and searches of an engine, read through
+ * {@link SearchEngine#getMetrics()} or, once registered, as a JMX MXBean.
+ * <p>
+ * Counters are {@link LongAdder}s and query latencies go to a {@link LatencyHistogram}, so recording takes no lock
+ * and concurrent searches do not contend on a single variable. Files are counted as the walk hands them to the
+ * engine, and matched files once per search, not in the loops that visit them.
+ */
+public final class SearchMetrics implements SearchMetricsMXBean {
+    /**
+     * JMX domain of the metrics registered with {@link #register(String)}.
+     */
+    public static final String DOMAIN = "com.qooria.filesearch";
+    private final QueryCache queryCache;
+    private final boolean isEnabled;
+    private final LongAdder filesWalked = new LongAdder();
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder termsEmitted = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder walkNanos = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder documentsMatched = new LongAdder();
+    private final LatencyHistogram queryLatency = new LatencyHistogram();
+
+    /**
+     * Constructor to initialize the cache whose hits are reported.
+     *
+     * @param queryCache {@link QueryCache} The cache of the engine, or {@code null} if results are not cached
+     */
+    SearchMetrics(final QueryCache queryCache) {
+        this(queryCache, true);
+    }
+
+    /**
+     * Constructor to initialize the cache whose hits are reported and whether anything is recorded.
+     *
+     * @param queryCache {@link QueryCache} The cache of the engine, or {@code null} if results are not cached
+     * @param isEnabled  {@code false} to record nothing, for an engine whose metrics are never read
+     */
+    SearchMetrics(final QueryCache queryCache, final boolean isEnabled) {
+        this.queryCache = queryCache;
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, so that JMX clients and the {@code :stats} command can read
+     * them.
+     *
+     * @param name {@link String} The name of the metrics, unique among the registered ones
+     * @return {@link ObjectName} The name the metrics are registered under, or {@code null} if they could not be
+     */
+    public ObjectName register(final String name) {
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=SearchMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public long getFilesWalked() {
+        return filesWalked.sum();
+    }
+
+    @Override
+    public long getFilesRead() {
+        return filesRead.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getTermsEmitted() {
+        return termsEmitted.sum();
+    }
+
+    @Override
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+
+    @Override
+    public long getWalkTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(walkNanos.sum());
+    }
+
+    @Override
+    public long getBuildTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(buildNanos.sum());
+    }
+
+    @Override
+    public long getLoadTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(loadNanos.sum());
+    }
+
+    @Override
+    public long getQueryCount() {
+        return queryLatency.getCount();
+    }
+
+    @Override
+    public double getQueryLatencyMeanMicros() {
+        return queryLatency.getMean() / 1000;
+    }
+
+    @Override
+    public double getQueryLatencyP50Micros() {
+        return queryLatency.getPercentile(50) / 1000.0;
+    }
+
+    @Override
+    public double getQueryLatencyP99Micros() {
+        return queryLatency.getPercentile(99) / 1000.0;
+    }
+
+    @Override
+    public double getQueryLatencyP999Micros() {
+        return queryLatency.getPercentile(99.9) / 1000.0;
+    }
+
+    @Override
+    public double getQueryLatencyMaxMicros() {
+        return queryLatency.getMax() / 1000.0;
+    }
+
+    @Override
+    public long getDocumentsMatched() {
+        return documentsMatched.sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return queryCache == null ? 0 : queryCache.getHitCount();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return queryCache == null ? 0 : queryCache.getMissCount();
+    }
+
+    /**
+     * Counts a file handed over by a directory walk.
+     *
+     * @param file {@link TokenizedFile} The file
+     */
+    void recordFile(final TokenizedFile file) {
+        if (!isEnabled) {
+            return;
+        }
+
+        filesWalked.increment();
+
+        if (file.isRead()) {
+            filesRead.increment();
+            bytesRead.add(file.getFile().getSize());
+            termsEmitted.add(file.getTermCount());
+        }
+    }
+
+    /**
+     * Counts a file or directory a directory walk failed to read. It may be called from several threads at once.
+     */
+    void recordFailure() {
+        if (isEnabled) {
+            filesFailed.increment();
+        }
+    }
+
+    void recordWalk(final long nanos) {
+        if (isEnabled) {
+            walkNanos.add(nanos);
+        }
+    }
+
+    void recordBuild(final long nanos) {
+        if (isEnabled) {
+            buildNanos.add(nanos);
+        }
+    }
+
+    void recordLoad(final long nanos) {
+        if (isEnabled) {
+            loadNanos.add(nanos);
+        }
+    }
+
+    void recordQuery(final long nanos) {
+        if (isEnabled) {
+            queryLatency.record(nanos);
+        }
+    }
+
+    void recordDocumentsMatched(final long count) {
+        if (isEnabled) {
+            documentsMatched.add(count);
+        }
+    }
+}
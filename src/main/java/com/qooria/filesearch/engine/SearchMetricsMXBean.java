@@ -0,0 +1,130 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Management interface of the {@link SearchMetrics} of an engine, registered with
+ * {@link SearchMetrics#register(String)}. All counts and times are cumulative since the engine was created.
+ */
+public interface SearchMetricsMXBean {
+
+    /**
+     * Get the number of files walked while indexing, including the unchanged files an update does not read again.
+     *
+     * @return The number of files
+     */
+    long getFilesWalked();
+
+    /**
+     * Get the number of files read and tokenized while indexing.
+     *
+     * @return The number of files
+     */
+    long getFilesRead();
+
+    /**
+     * Get the size of the files read while indexing.
+     *
+     * @return The number of bytes, as stored on disk
+     */
+    long getBytesRead();
+
+    /**
+     * Get the number of term occurrences found in the files read.
+     *
+     * @return The number of terms
+     */
+    long getTermsEmitted();
+
+    /**
+     * Get the number of files and directories that failed to be read while indexing. A file failing is indexed with
+     * the terms read before the failure, or skipped if it fails before it is read; a directory failing to be listed is
+     * skipped.
+     *
+     * @return The number of files and directories
+     */
+    long getFilesFailed();
+
+    /**
+     * Get the time spent walking directories and reading and tokenizing their files.
+     *
+     * @return The time in milliseconds
+     */
+    long getWalkTimeMillis();
+
+    /**
+     * Get the time spent merging and compressing postings into new indexes.
+     *
+     * @return The time in milliseconds
+     */
+    long getBuildTimeMillis();
+
+    /**
+     * Get the time spent loading written indexes.
+     *
+     * @return The time in milliseconds
+     */
+    long getLoadTimeMillis();
+
+    /**
+     * Get the number of searches.
+     *
+     * @return The number of searches
+     */
+    long getQueryCount();
+
+    /**
+     * Get the mean latency of searches.
+     *
+     * @return The latency in microseconds
+     */
+    double getQueryLatencyMeanMicros();
+
+    /**
+     * Get the median latency of searches.
+     *
+     * @return The latency in microseconds
+     */
+    double getQueryLatencyP50Micros();
+
+    /**
+     * Get the 99th percentile of the latency of searches.
+     *
+     * @return The latency in microseconds
+     */
+    double getQueryLatencyP99Micros();
+
+    /**
+     * Get the 99.9th percentile of the latency of searches.
+     *
+     * @return The latency in microseconds
+     */
+    double getQueryLatencyP999Micros();
+
+    /**
+     * Get the longest latency of searches.
+     *
+     * @return The latency in microseconds
+     */
+    double getQueryLatencyMaxMicros();
+
+    /**
+     * Get the number of matched files searches scored, files skipped by pruning not counted. Postings decoded to find
+     * them and dictionary terms visited by prefix or wildcard words are not counted.
+     *
+     * @return The number of matched files
+     */
+    long getDocumentsMatched();
+
+    /**
+     * Get the number of searches answered from the cache of results.
+     *
+     * @return The number of cache hits, 0 if results are not cached
+     */
+    long getCacheHitCount();
+
+    /**
+     * Get the number of searches not found in the cache of results.
+     *
+     * @return The number of cache misses, 0 if results are not cached
+     */
+    long getCacheMissCount();
+}
@@ -1,11 +1,53 @@
 package com.qooria.filesearch.engine;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * DTO to capture search options.
  */
 public final class SearchOption {
+    /**
+     * Upper bound of the relative difference between a rank computed with {@link Builder#withFastRanking(boolean)} and
+     * the exact rank.
+     */
+    public static final double FAST_RANKING_TOLERANCE = 1e-12;
+    /**
+     * Default bound of the estimated bytes taken by cached search results.
+     */
+    public static final long DEFAULT_QUERY_CACHE_BYTES = 16L * 1024 * 1024;
+    /**
+     * Default size from which indexed files are mapped into memory.
+     */
+    public static final long DEFAULT_MAPPED_READ_THRESHOLD = 8L * 1024 * 1024;
+    private static final Map<String, Extractor> DEFAULT_EXTRACTORS = new LinkedHashMap<>();
     private boolean caseSensitive;
     private int maxResultCount;
+    private int indexingThreads;
+    private boolean wholeWordMatch;
+    private boolean fastRanking;
+    private boolean retainContent;
+    private boolean indexPositions;
+    private Scorer scorer;
+    private int queryCacheSize;
+    private long queryCacheBytes;
+    private long mappedReadThreshold;
+    private Map<String, Extractor> extractors;
+    private Map<ByteBuffer, Extractor> sniffedExtractors;
+    private List<String> includePatterns;
+    private List<String> excludePatterns;
+    private long maxFileSize;
+
+    static {
+        for (String pattern : new String[]{"*.txt", "*.log", "*.md", "*.csv"}) {
+            DEFAULT_EXTRACTORS.put(pattern, Extractor.TEXT);
+        }
+        DEFAULT_EXTRACTORS.put("*.gz", Extractor.GZIP);
+    }
 
     /**
      * Constructor to initialize option with builder.
@@ -15,6 +57,22 @@ public final class SearchOption {
     public SearchOption(final Builder builder) {
         this.caseSensitive = builder.caseSensitive;
         this.maxResultCount = builder.maxResultCount;
+        this.indexingThreads = builder.indexingThreads;
+        this.wholeWordMatch = builder.wholeWordMatch;
+        this.fastRanking = builder.fastRanking;
+        this.retainContent = builder.retainContent;
+        this.indexPositions = builder.indexPositions;
+        this.scorer = builder.scorer;
+        this.queryCacheSize = builder.queryCacheSize;
+        this.queryCacheBytes = builder.queryCacheBytes;
+        this.mappedReadThreshold = builder.mappedReadThreshold;
+        this.extractors = new LinkedHashMap<>(builder.extractors);
+        DEFAULT_EXTRACTORS.forEach(this.extractors::putIfAbsent);
+        this.extractors = Collections.unmodifiableMap(this.extractors);
+        this.sniffedExtractors = Collections.unmodifiableMap(new LinkedHashMap<>(builder.sniffedExtractors));
+        this.includePatterns = Collections.unmodifiableList(new ArrayList<>(builder.includePatterns));
+        this.excludePatterns = Collections.unmodifiableList(new ArrayList<>(builder.excludePatterns));
+        this.maxFileSize = builder.maxFileSize;
     }
 
     public static Builder builder() {
@@ -29,12 +87,172 @@ public final class SearchOption {
         return maxResultCount;
     }
 
+    /**
+     * Get the number of threads reading and tokenizing files while indexing. Below 2, files are indexed on the calling
+     * thread.
+     *
+     * @return The number of indexing threads
+     */
+    public int getIndexingThreads() {
+        return indexingThreads;
+    }
+
+    /**
+     * Get whether a search word only matches whole terms of a file. Otherwise, as by default, it also matches inside
+     * longer terms, so that {@code "is"} matches {@code "this"}.
+     *
+     * @return {@code true} if only whole terms match, otherwise {@code false}
+     */
+    public boolean isWholeWordMatch() {
+        return wholeWordMatch;
+    }
+
+    /**
+     * Get whether results are ranked in {@code double} arithmetic instead of exact {@link java.math.BigDecimal}
+     * arithmetic. This is much faster on large indexes; ranks then differ from the exact ones by a relative error below
+     * {@link #FAST_RANKING_TOLERANCE}, so results whose exact ranks are closer than that may swap places.
+     *
+     * @return {@code true} if results are ranked in {@code double} arithmetic, otherwise {@code false}
+     */
+    public boolean isFastRanking() {
+        return fastRanking;
+    }
+
+    /**
+     * Get whether the content of indexed files is kept in memory, sanitized unless case sensitive, and returned with
+     * the indexed files and search results. Otherwise, as by default, files are streamed into the index and their
+     * content is {@code null}.
+     *
+     * @return {@code true} if file content is retained, otherwise {@code false}
+     */
+    public boolean isRetainContent() {
+        return retainContent;
+    }
+
+    /**
+     * Get whether the index holds the position of every term occurrence, which phrase queries such as
+     * {@code "connection reset"} and proximity queries such as {@code error NEAR/5 timeout} need. Positions make the
+     * index larger, so they are not indexed by default.
+     *
+     * @return {@code true} if positions are indexed, otherwise {@code false}
+     */
+    public boolean isIndexPositions() {
+        return indexPositions;
+    }
+
+    /**
+     * Get the ranking algorithm of search results, by default {@link EmphasisScorer}.
+     *
+     * @return {@link Scorer} The scorer
+     */
+    public Scorer getScorer() {
+        return scorer;
+    }
+
+    /**
+     * Get the maximum number of queries whose results are cached, so that repeating a query does not search the index
+     * again until it changes. Results are not cached by default.
+     *
+     * @return The maximum number of cached queries, 0 or less if results are not cached
+     */
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    /**
+     * Get the maximum estimated number of bytes taken by cached results, by default
+     * {@link #DEFAULT_QUERY_CACHE_BYTES}.
+     *
+     * @return The maximum estimated size of the cache
+     */
+    public long getQueryCacheBytes() {
+        return queryCacheBytes;
+    }
+
+    /**
+     * Get the size from which files are mapped into memory and tokenized from the mapped bytes while indexing, instead
+     * of being read in chunks and decoded, by default {@link #DEFAULT_MAPPED_READ_THRESHOLD}. Mapping saves copying and
+     * decoding large files but costs more than reading small ones. Files whose content is retained are always read.
+     *
+     * @return The size in bytes, {@link Long#MAX_VALUE} for no file to be mapped
+     */
+    public long getMappedReadThreshold() {
+        return mappedReadThreshold;
+    }
+
+    /**
+     * Get the extractors of the indexed files by file name pattern, in the order they are tried. A file is indexed with
+     * the first extractor whose glob pattern matches it; patterns without {@code /} match the file name, the others the
+     * path relative to the indexed directory, ignoring case. Patterns added to the builder come before the defaults,
+     * which extract {@code *.txt}, {@code *.log}, {@code *.md} and {@code *.csv} files with {@link Extractor#TEXT} and
+     * {@code *.gz} files with {@link Extractor#GZIP}.
+     *
+     * @return {@link Map} of each glob pattern to its {@link Extractor}
+     */
+    public Map<String, Extractor> getExtractors() {
+        return extractors;
+    }
+
+    /**
+     * Get the extractors of the indexed files by leading bytes, tried in order on the files no name pattern of
+     * {@link #getExtractors()} matches. Only then are the first bytes of a file read. There are none by default.
+     *
+     * @return {@link Map} of each read-only {@link ByteBuffer} of leading bytes to its {@link Extractor}
+     */
+    public Map<ByteBuffer, Extractor> getSniffedExtractors() {
+        return sniffedExtractors;
+    }
+
+    /**
+     * Get the glob patterns of the files to index, matched like the patterns of {@link #getExtractors()}. Without
+     * any, as by default, every file that has an extractor is indexed.
+     *
+     * @return {@link List} of {@link String} The patterns
+     */
+    public List<String> getIncludePatterns() {
+        return includePatterns;
+    }
+
+    /**
+     * Get the glob patterns of the files not to index, even if an include pattern matches them, matched like the
+     * patterns of {@link #getExtractors()}.
+     *
+     * @return {@link List} of {@link String} The patterns
+     */
+    public List<String> getExcludePatterns() {
+        return excludePatterns;
+    }
+
+    /**
+     * Get the size above which files are not indexed, checked before any byte of a file is read. Files are indexed
+     * whatever their size by default.
+     *
+     * @return The size in bytes, {@link Long#MAX_VALUE} for no limit
+     */
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
     /**
      * Builder class to build optional fields
      */
     public static final class Builder {
         private boolean caseSensitive;
         private int maxResultCount;
+        private int indexingThreads;
+        private boolean wholeWordMatch;
+        private boolean fastRanking;
+        private boolean retainContent;
+        private boolean indexPositions;
+        private Scorer scorer = new EmphasisScorer();
+        private int queryCacheSize;
+        private long queryCacheBytes = DEFAULT_QUERY_CACHE_BYTES;
+        private long mappedReadThreshold = DEFAULT_MAPPED_READ_THRESHOLD;
+        private final Map<String, Extractor> extractors = new LinkedHashMap<>();
+        private final Map<ByteBuffer, Extractor> sniffedExtractors = new LinkedHashMap<>();
+        private final List<String> includePatterns = new ArrayList<>();
+        private final List<String> excludePatterns = new ArrayList<>();
+        private long maxFileSize = Long.MAX_VALUE;
 
         private Builder() {
         }
@@ -49,6 +267,76 @@ public final class SearchOption {
             return this;
         }
 
+        public Builder withIndexingThreads(int indexingThreads) {
+            this.indexingThreads = indexingThreads;
+            return this;
+        }
+
+        public Builder withWholeWordMatch(boolean wholeWordMatch) {
+            this.wholeWordMatch = wholeWordMatch;
+            return this;
+        }
+
+        public Builder withFastRanking(boolean fastRanking) {
+            this.fastRanking = fastRanking;
+            return this;
+        }
+
+        public Builder withRetainContent(boolean retainContent) {
+            this.retainContent = retainContent;
+            return this;
+        }
+
+        public Builder withIndexPositions(boolean indexPositions) {
+            this.indexPositions = indexPositions;
+            return this;
+        }
+
+        public Builder withScorer(Scorer scorer) {
+            this.scorer = scorer;
+            return this;
+        }
+
+        public Builder withQueryCacheSize(int queryCacheSize) {
+            this.queryCacheSize = queryCacheSize;
+            return this;
+        }
+
+        public Builder withQueryCacheBytes(long queryCacheBytes) {
+            this.queryCacheBytes = queryCacheBytes;
+            return this;
+        }
+
+        public Builder withMappedReadThreshold(long mappedReadThreshold) {
+            this.mappedReadThreshold = mappedReadThreshold;
+            return this;
+        }
+
+        public Builder withExtractor(String pattern, Extractor extractor) {
+            this.extractors.put(pattern, extractor);
+            return this;
+        }
+
+        public Builder withExtractor(byte[] leadingBytes, Extractor extractor) {
+            this.sniffedExtractors.put(ByteBuffer.wrap(leadingBytes.clone()).asReadOnlyBuffer(), extractor);
+            return this;
+        }
+
+        public Builder withIncludePattern(String pattern) {
+            this.includePatterns.add(pattern);
+            return this;
+        }
+
+        public Builder withExcludePattern(String pattern) {
+            this.excludePatterns.add(pattern);
+            return this;
+        }
+
+        public Builder withMaxFileSize(long maxFileSize) {
+            this.maxFileSize = maxFileSize;
+            return this;
+        }
+
         public SearchOption build() {
             return new SearchOption(this);
         }
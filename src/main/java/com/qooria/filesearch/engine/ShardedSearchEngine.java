@@ -0,0 +1,197 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.dto.IndexedFile;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Search engine splitting the files of a directory across several independent {@link SearchEngine} shards by the hash
+ * of their path relative to the directory, so that every shard holds its own index and shards are indexed and searched
+ * in parallel.
+ * <p>
+ * The directory is walked once, every file read being handed to the update of its shard, and the shards then build
+ * their indexes in parallel. Shards cache no results and record no metrics: they are only searched through the two
+ * phases below, and the walk is not theirs.
+ * <p>
+ * A search runs in two phases on every shard: the postings of the query are collected first, then the matched files
+ * are ranked with the statistics of the whole collection, the number of files, of terms and of files containing every
+ * word, summed over the shards. The best files of every shard are then merged into the best files overall, ties being
+ * broken by shard. BM25 ranks are therefore the same as in a single engine. The default ranking uses the number of
+ * files of the collection too, but the emphasis of a word only carries over between the files of one shard.
+ * <p>
+ * Indexing methods are serialized with one another. The index of every shard is built before any is replaced, and the
+ * indexes of all the shards are then published together, so a search reads them once and sees every shard indexed by
+ * the same update.
+ */
+public final class ShardedSearchEngine {
+    private final SearchOption options;
+    private final SearchEngine[] shards;
+    private final Executor executor;
+    private volatile IndexSnapshot[] snapshots;
+
+    /**
+     * Constructor to initialize the shards.
+     *
+     * @param options    {@link SearchOption} Search options, shared by every shard
+     * @param shardCount The number of shards, at least 1
+     * @param executor   {@link Executor} The executor running the shards in parallel
+     */
+    public ShardedSearchEngine(final SearchOption options, final int shardCount, final Executor executor) {
+        if (shardCount < 1 || executor == null) {
+            throw new IllegalArgumentException(ConsoleMessage.INVALID_INPUT.getMessage());
+        }
+
+        this.options = options;
+        this.shards = new SearchEngine[shardCount];
+        this.executor = executor;
+        this.snapshots = new IndexSnapshot[shardCount];
+
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new SearchEngine(options, false);
+            snapshots[i] = IndexSnapshot.EMPTY;
+        }
+    }
+
+    /**
+     * Indexes a directory, walked once for all the shards.
+     *
+     * @param dir {@link String} The directory
+     * @return {@link List} of {@link IndexedFile} The indexed files, shard by shard
+     * @throws FileNotFoundException if the directory does not exist
+     */
+    public synchronized List<IndexedFile> indexDirectory(final String dir) throws FileNotFoundException {
+        return index(dir, false);
+    }
+
+    /**
+     * Brings the index up to date with a directory, walked once for all the shards, reading the changed files again.
+     *
+     * @param dir {@link String} The directory
+     * @return {@link List} of {@link IndexedFile} The indexed files, shard by shard
+     * @throws FileNotFoundException if the directory does not exist
+     * @see SearchEngine#updateDirectory(String)
+     */
+    public synchronized List<IndexedFile> updateDirectory(final String dir) throws FileNotFoundException {
+        return index(dir, true);
+    }
+
+    /**
+     * Get the list of indexed files.
+     *
+     * @return {@link List} of {@link IndexedFile} The indexed files, shard by shard
+     */
+    public List<IndexedFile> getIndexedFiles() {
+        final List<IndexedFile> files = new ArrayList<>();
+
+        for (IndexSnapshot snapshot : snapshots) {
+            files.addAll(snapshot.getDocuments().getFiles());
+        }
+
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Get the number of shards.
+     *
+     * @return The number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Searches for a term in every shard.
+     *
+     * @param term {@link String} The search term
+     * @return {@link List} of {@link FileResult} The best ranked files of all shards, best first
+     * @see SearchEngine#search(String)
+     */
+    public List<FileResult> search(final String term) {
+        return search(term, options.getMaxResultCount());
+    }
+
+    /**
+     * Searches for a term in every shard, returning up to a given number of files.
+     *
+     * @param term           {@link String} The search term
+     * @param maxResultCount The maximum number of files returned
+     * @return {@link List} of {@link FileResult} The best ranked files of all shards, best first
+     * @see SearchEngine#search(String, int)
+     */
+    public List<FileResult> search(final String term, final int maxResultCount) {
+        final Query query = SearchEngine.parse(term, options);
+        final IndexSnapshot[] current = snapshots;
+        final List<PreparedSearch> searches = scatter(i -> shards[i].prepare(query, current[i]));
+        final CollectionStatistics statistics = CollectionStatistics.sum(
+                searches.stream().map(PreparedSearch::getStatistics).collect(Collectors.toList()));
+        final List<List<FileResult>> shardResults = scatter(i -> shards[i].search(searches.get(i), statistics, maxResultCount));
+
+        // The sort is stable, so ties keep the order of the shards and, within a shard, its own order.
+        return shardResults
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(FileResult::getRank).reversed())
+                .limit(Math.max(maxResultCount, 0))
+                .collect(Collectors.toList());
+    }
+
+    private List<IndexedFile> index(final String dir, final boolean isReplacing) throws FileNotFoundException {
+        final Path walked = SearchEngine.getDirectory(dir).toPath();
+        final Path directory = walked.toAbsolutePath().normalize();
+        final List<SearchEngine.Update> updates = new ArrayList<>(shards.length);
+
+        for (SearchEngine shard : shards) {
+            updates.add(shard.newUpdate(isReplacing));
+        }
+
+        new DirectoryWalker(options).walk(walked,
+                file -> updates.get(getShard(directory, file.toPath())).getUnchangedFile(file),
+                file -> updates.get(getShard(directory, Paths.get(file.getFile().getPath()))).add(file));
+        final List<IndexSnapshot> built = scatter(i -> updates.get(i).build());
+
+        // Every shard keeps its index for its next update, but searches only see the indexes published together.
+        for (SearchEngine.Update update : updates) {
+            update.apply();
+        }
+        snapshots = built.toArray(new IndexSnapshot[0]);
+
+        return getIndexedFiles();
+    }
+
+    /**
+     * Runs a task for every shard in parallel.
+     */
+    private <T> List<T> scatter(final IntFunction<T> task) {
+        final List<CompletableFuture<T>> futures = IntStream
+                .range(0, shards.length)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> task.apply(i), executor))
+                .collect(Collectors.toList());
+
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private int getShard(final Path directory, final Path file) {
+        return Math.floorMod(directory.relativize(file.toAbsolutePath().normalize()).toString().hashCode(), shards.length);
+    }
+}
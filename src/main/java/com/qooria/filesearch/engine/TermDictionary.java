@@ -0,0 +1,348 @@
+package com.qooria.filesearch.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted term dictionary held off the Java heap in a direct {@link ByteBuffer}. Every term maps to its
+ * ordinal, its position in ascending order of UTF-8 bytes, which indexes the postings of the term.
+ * <p>
+ * Terms are front coded in blocks of {@value #BLOCK_SIZE}: the first term of a block is stored whole, every other term
+ * as the length of the prefix it shares with the previous term and its remaining bytes, lengths being variable-byte
+ * integers. The buffer starts with the offset of every block, so an exact lookup is a binary search over the first
+ * terms of the blocks followed by the scan of one block. The terms sharing a prefix have consecutive ordinals, so
+ * enumerating them takes two such lookups and a sequential scan.
+ * <p>
+ * The buffer is only read with absolute gets, so a dictionary can be read from several threads at once.
+ */
+public final class TermDictionary {
+    private static final int BLOCK_SIZE = 16;
+    private final ByteBuffer buffer;
+    private final int termCount;
+    private final int blockCount;
+
+    private TermDictionary(final ByteBuffer buffer, final int termCount) {
+        this.buffer = buffer;
+        this.termCount = termCount;
+        this.blockCount = (termCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Builds a dictionary of distinct terms.
+     *
+     * @param terms {@link Collection} of {@link String} The distinct terms, in any order
+     * @return {@link TermDictionary} The dictionary
+     */
+    public static TermDictionary of(final Collection<String> terms) {
+        final byte[][] sorted = new byte[terms.size()][];
+        int count = 0;
+        for (String term : terms) {
+            sorted[count++] = term.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(sorted, TermDictionary::compare);
+
+        final int blockCount = (sorted.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final int[] blockOffsets = new int[blockCount];
+        byte[] data = new byte[64];
+        int length = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            final int shared = i % BLOCK_SIZE == 0 ? 0 : VarInts.sharedPrefix(sorted[i - 1], sorted[i]);
+            final int suffix = sorted[i].length - shared;
+
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = length;
+            }
+            if (data.length - length < suffix + 10) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + suffix + 10));
+            }
+
+            length = VarInts.write(data, length, shared);
+            length = VarInts.write(data, length, suffix);
+            System.arraycopy(sorted[i], shared, data, length, suffix);
+            length += suffix;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(blockCount * Integer.BYTES + length);
+        for (int offset : blockOffsets) {
+            buffer.putInt(offset + blockCount * Integer.BYTES);
+        }
+        buffer.put(data, 0, length);
+        buffer.flip();
+
+        return new TermDictionary(buffer, sorted.length);
+    }
+
+    /**
+     * Get the number of terms.
+     *
+     * @return The number of terms
+     */
+    public int size() {
+        return termCount;
+    }
+
+    /**
+     * Get the ordinal of a term.
+     *
+     * @param term {@link String} The term
+     * @return The ordinal of the term, or -1 if the term is not in the dictionary
+     */
+    public int getOrdinal(final String term) {
+        final byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        final Scanner scanner = new Scanner(findBlock(key));
+
+        while (scanner.next()) {
+            final int comparison = scanner.compareTo(key);
+
+            if (comparison == 0) {
+                return scanner.ordinal;
+            }
+            if (comparison > 0) {
+                break;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get the term of an ordinal.
+     *
+     * @param ordinal The ordinal
+     * @return {@link String} The term
+     */
+    public String getTerm(final int ordinal) {
+        if (ordinal < 0 || ordinal >= termCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(ordinal));
+        }
+
+        final Scanner scanner = new Scanner(ordinal / BLOCK_SIZE);
+        while (scanner.next() && scanner.ordinal < ordinal) {
+            // decode the terms of the block up to the ordinal
+        }
+        return scanner.term();
+    }
+
+    /**
+     * Visits every term in ascending order, decoding the terms one after the other into a reused byte array.
+     *
+     * @param visitor {@link TermIndex.TermVisitor} The visitor
+     */
+    public void forEachTerm(final TermIndex.TermVisitor visitor) {
+        final Scanner scanner = new Scanner(0);
+
+        while (scanner.next()) {
+            visitor.visit(scanner.ordinal, scanner.term, scanner.length);
+        }
+    }
+
+    /**
+     * Get all the terms, in ascending order. The returned list is a view that decodes terms as they are read.
+     *
+     * @return {@link List} of {@link String} The terms
+     */
+    public List<String> getTerms() {
+        return new TermList(0, termCount);
+    }
+
+    /**
+     * Get the terms starting with a prefix, in ascending order. The returned list is a view that decodes terms as they
+     * are read.
+     *
+     * @param prefix {@link String} The prefix
+     * @return {@link List} of {@link String} The terms
+     */
+    public List<String> getTerms(final String prefix) {
+        final byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        final byte[] end = successor(key);
+        return new TermList(lowerBound(key), end == null ? termCount : lowerBound(end));
+    }
+
+    /**
+     * Compares two byte arrays as unsigned bytes, like UTF-8 strings in code point order.
+     */
+    static int compare(final byte[] first, final byte[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            final int comparison = Integer.compare(first[i] & 0xff, second[i] & 0xff);
+
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return Integer.compare(first.length, second.length);
+    }
+
+    /**
+     * Get the smallest byte string greater than every byte string starting with a prefix.
+     *
+     * @param prefix The prefix
+     * @return The successor, or {@code null} if every byte string greater than the prefix starts with it
+     */
+    static byte[] successor(final byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xff) {
+                final byte[] successor = Arrays.copyOf(prefix, i + 1);
+                successor[i]++;
+                return successor;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the ordinal of the first term that is not lower than a key, or the number of terms if there is none.
+     */
+    private int lowerBound(final byte[] key) {
+        final Scanner scanner = new Scanner(findBlock(key));
+
+        while (scanner.next()) {
+            if (scanner.compareTo(key) >= 0) {
+                return scanner.ordinal;
+            }
+        }
+
+        return Math.min(termCount, scanner.ordinal + 1);
+    }
+
+    /**
+     * Get the last block whose first term is not greater than a key, or the first block if there is none.
+     */
+    private int findBlock(final byte[] key) {
+        int low = 0;
+        int high = blockCount - 1;
+
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            final Scanner scanner = new Scanner(middle);
+            scanner.next();
+
+            if (scanner.compareTo(key) <= 0) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Decodes the terms one after the other from the start of a block, into a reused byte array.
+     */
+    private final class Scanner {
+        private byte[] term = new byte[32];
+        private int length;
+        private int position;
+        private int ordinal;
+        private int end;
+
+        private Scanner(final int block) {
+            this.ordinal = block * BLOCK_SIZE - 1;
+            this.position = blockCount == 0 ? 0 : buffer.getInt(block * Integer.BYTES);
+            this.end = termCount;
+        }
+
+        /**
+         * Moves to the next term, without crossing the end of the dictionary.
+         */
+        private boolean next() {
+            if (ordinal + 1 >= end) {
+                return false;
+            }
+
+            ordinal++;
+            final int shared = readVInt();
+            final int suffix = readVInt();
+
+            if (term.length < shared + suffix) {
+                term = Arrays.copyOf(term, Math.max(term.length * 2, shared + suffix));
+            }
+            for (int i = 0; i < suffix; i++) {
+                term[shared + i] = buffer.get(position++);
+            }
+            length = shared + suffix;
+            return true;
+        }
+
+        private int compareTo(final byte[] key) {
+            for (int i = 0; i < Math.min(length, key.length); i++) {
+                final int comparison = Integer.compare(term[i] & 0xff, key[i] & 0xff);
+
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+
+            return Integer.compare(length, key.length);
+        }
+
+        private String term() {
+            return new String(term, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int readVInt() {
+            final int value = VarInts.read(buffer, position);
+            position += VarInts.length(value);
+            return value;
+        }
+    }
+
+    /**
+     * View of the terms of a range of ordinals, iterated by decoding the terms sequentially.
+     */
+    private final class TermList extends AbstractList<String> {
+        private final int from;
+        private final int to;
+
+        private TermList(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public String get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return getTerm(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            final Scanner scanner = new Scanner(from / BLOCK_SIZE);
+            scanner.end = to;
+            while (scanner.ordinal + 1 < from && scanner.next()) {
+                // skip the terms of the block before the range
+            }
+
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return scanner.ordinal + 1 < to;
+                }
+
+                @Override
+                public String next() {
+                    if (!scanner.next()) {
+                        throw new NoSuchElementException();
+                    }
+                    return scanner.term();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.qooria.filesearch.engine;
+
+/**
+ * Read access to an index of terms to the postings of the files containing them.
+ */
+public interface TermIndex {
+
+    /**
+     * Get the number of indexed files.
+     *
+     * @return The number of indexed files
+     */
+    int getDocumentCount();
+
+    /**
+     * Get the length of an indexed file, counted in terms.
+     *
+     * @param documentId The file id
+     * @return The number of term occurrences in the file
+     */
+    int getDocumentLength(int documentId);
+
+    /**
+     * Get the total length of the indexed files, counted in terms.
+     *
+     * @return The number of term occurrences in all the files
+     */
+    long getTotalLength();
+
+    /**
+     * Get whether the postings of the index hold the positions of the terms.
+     *
+     * @return {@code true} if positions are held, otherwise {@code false}
+     */
+    boolean hasPositions();
+
+    /**
+     * Get all the distinct terms in the index.
+     *
+     * @return {@link Iterable} of {@link String} The term dictionary
+     */
+    Iterable<String> getTerms();
+
+    /**
+     * Get the terms of the index starting with a prefix, in ascending order.
+     *
+     * @param prefix {@link String} The prefix
+     * @return {@link Iterable} of {@link String} The terms
+     */
+    Iterable<String> getTerms(String prefix);
+
+    /**
+     * Visits every term of the index in ascending order of UTF-8 bytes, without creating a {@link String} per term.
+     *
+     * @param visitor {@link TermVisitor} The visitor
+     */
+    void forEachTerm(TermVisitor visitor);
+
+    /**
+     * Get the postings of a term.
+     *
+     * @param term {@link String} The term
+     * @return {@link PostingsList} The postings, or {@code null} if the term is not indexed
+     */
+    PostingsList getPostings(String term);
+
+    /**
+     * Get the postings of a term by its ordinal, the position of the term in ascending order of UTF-8 bytes.
+     *
+     * @param ordinal The ordinal, as given by {@link #forEachTerm(TermVisitor)}
+     * @return {@link PostingsList} The postings
+     */
+    PostingsList getPostings(int ordinal);
+
+    /**
+     * Visitor of the terms of an index.
+     */
+    @FunctionalInterface
+    interface TermVisitor {
+
+        /**
+         * Visits a term.
+         *
+         * @param ordinal The ordinal of the term
+         * @param term    The UTF-8 bytes of the term, in an array reused for the next term
+         * @param length  The number of bytes of the term
+         */
+        void visit(int ordinal, byte[] term, int length);
+    }
+}
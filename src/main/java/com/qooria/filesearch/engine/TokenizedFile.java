@@ -0,0 +1,95 @@
+package com.qooria.filesearch.engine;
+
+import com.qooria.filesearch.dto.IndexedFile;
+
+import java.util.Map;
+
+/**
+ * A file that has been read and split into terms, ready to be added to the index, with either the frequencies or, for
+ * an index with positions, the positions of its terms. Both are {@code null} for a file that is already indexed and has
+ * not changed.
+ */
+final class TokenizedFile {
+    private final IndexedFile file;
+    private final Map<String, Integer> termFrequencies;
+    private final Map<String, int[]> termPositions;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param file            {@link IndexedFile} The indexed file
+     * @param termFrequencies {@link Map} of each term of the file to its frequency, or {@code null} if unchanged
+     */
+    TokenizedFile(final IndexedFile file, final Map<String, Integer> termFrequencies) {
+        this(file, termFrequencies, null);
+    }
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param file            {@link IndexedFile} The indexed file
+     * @param termFrequencies {@link Map} of each term of the file to its frequency, or {@code null}
+     * @param termPositions   {@link Map} of each term of the file to its positions, or {@code null}
+     */
+    TokenizedFile(final IndexedFile file, final Map<String, Integer> termFrequencies, final Map<String, int[]> termPositions) {
+        this.file = file;
+        this.termFrequencies = termFrequencies;
+        this.termPositions = termPositions;
+    }
+
+    IndexedFile getFile() {
+        return file;
+    }
+
+    Map<String, Integer> getTermFrequencies() {
+        return termFrequencies;
+    }
+
+    Map<String, int[]> getTermPositions() {
+        return termPositions;
+    }
+
+    /**
+     * Get whether the file has to be added to the index, because it is not indexed yet or has changed.
+     *
+     * @return {@code true} if the file has been read, otherwise {@code false}
+     */
+    boolean isRead() {
+        return termFrequencies != null || termPositions != null;
+    }
+
+    /**
+     * Get the number of term occurrences in the file.
+     *
+     * @return The number of terms, 0 if the file has not been read
+     */
+    long getTermCount() {
+        long count = 0;
+
+        if (termPositions != null) {
+            for (int[] positions : termPositions.values()) {
+                count += positions.length;
+            }
+        } else if (termFrequencies != null) {
+            for (int frequency : termFrequencies.values()) {
+                count += frequency;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Adds the terms of the file to an index.
+     *
+     * @param builder    {@link InvertedIndex.Builder} The index builder
+     * @param documentId The id of the file
+     */
+    void addTo(final InvertedIndex.Builder builder, final int documentId) {
+        if (termPositions != null) {
+            builder.addDocumentPositions(documentId, termPositions);
+        } else {
+            builder.addDocument(documentId, termFrequencies);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.qooria.filesearch.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * Bounded min-heap keeping the best ranked files seen so far, by id, score and rank, without allocating per file.
+ * <p>
+ * A file ranks before another if its rank is higher or, for equal ranks, its id is lower. Once the heap is full, a file
+ * only enters it by ranking before the worst file kept, which it then replaces. Files offered with an exact rank are
+ * compared by it, and by their {@code double} rank otherwise.
+ */
+final class TopDocuments {
+    private final int[] documentIds;
+    private final int[] scores;
+    private final double[] ranks;
+    private final BigDecimal[] exactRanks;
+    private int size;
+
+    /**
+     * Constructor to initialize fields.
+     *
+     * @param capacity The maximum number of files kept
+     */
+    TopDocuments(final int capacity) {
+        this.documentIds = new int[Math.max(capacity, 0)];
+        this.scores = new int[documentIds.length];
+        this.ranks = new double[documentIds.length];
+        this.exactRanks = new BigDecimal[documentIds.length];
+    }
+
+    /**
+     * Offers a file ranked in {@code double} arithmetic to the heap.
+     *
+     * @param documentId The file id
+     * @param score      The file score
+     * @param rank       The file rank
+     */
+    void offer(final int documentId, final int score, final double rank) {
+        offer(documentId, score, rank, null);
+    }
+
+    /**
+     * Offers a file to the heap.
+     *
+     * @param documentId The file id
+     * @param score      The file score
+     * @param rank       The file rank
+     * @param exactRank  {@link BigDecimal} The exact file rank, or {@code null} if ranks are not exact
+     */
+    void offer(final int documentId, final int score, final double rank, final BigDecimal exactRank) {
+        if (size < documentIds.length) {
+            set(size, documentId, score, rank, exactRank);
+            siftUp(size++);
+        } else if (size > 0 && isRankedBefore(rank, exactRank, documentId, ranks[0], exactRanks[0], documentIds[0])) {
+            set(0, documentId, score, rank, exactRank);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Get the number of files kept.
+     *
+     * @return The number of files
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the rank a file must beat to enter the heap: files of equal rank offered later have higher ids, so they do
+     * not enter it either.
+     *
+     * @return The rank of the worst file kept once the heap is full, otherwise negative infinity
+     */
+    double getThreshold() {
+        if (size < documentIds.length) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return size == 0 ? Double.POSITIVE_INFINITY : ranks[0];
+    }
+
+    /**
+     * Sorts the files kept from best to worst ranked, after which they are read with {@link #getDocumentId(int)},
+     * {@link #getScore(int)}, {@link #getRank(int)} and {@link #getExactRank(int)}. No file may be offered afterwards.
+     */
+    void sort() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+
+            for (int i = 0, child = 1; child < end; i = child, child = 2 * i + 1) {
+                if (child + 1 < end && isWorse(child + 1, child)) {
+                    child++;
+                }
+                if (!isWorse(child, i)) {
+                    break;
+                }
+                swap(i, child);
+            }
+        }
+    }
+
+    int getDocumentId(final int index) {
+        return documentIds[index];
+    }
+
+    int getScore(final int index) {
+        return scores[index];
+    }
+
+    double getRank(final int index) {
+        return ranks[index];
+    }
+
+    BigDecimal getExactRank(final int index) {
+        return exactRanks[index];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0 && isWorse(i, (i - 1) / 2)) {
+            swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private void siftDown(int i) {
+        for (int child = 1; child < size; i = child, child = 2 * i + 1) {
+            if (child + 1 < size && isWorse(child + 1, child)) {
+                child++;
+            }
+            if (!isWorse(child, i)) {
+                break;
+            }
+            swap(i, child);
+        }
+    }
+
+    private boolean isWorse(final int first, final int second) {
+        return isRankedBefore(ranks[second], exactRanks[second], documentIds[second],
+                ranks[first], exactRanks[first], documentIds[first]);
+    }
+
+    private static boolean isRankedBefore(final double rank, final BigDecimal exactRank, final int documentId,
+                                          final double otherRank, final BigDecimal otherExactRank, final int otherDocumentId) {
+        final int comparison = exactRank != null && otherExactRank != null ? exactRank.compareTo(otherExactRank)
+                : Double.compare(rank, otherRank);
+        return comparison > 0 || (comparison == 0 && documentId < otherDocumentId);
+    }
+
+    private void set(final int index, final int documentId, final int score, final double rank, final BigDecimal exactRank) {
+        documentIds[index] = documentId;
+        scores[index] = score;
+        ranks[index] = rank;
+        exactRanks[index] = exactRank;
+    }
+
+    private void swap(final int first, final int second) {
+        final int documentId = documentIds[first];
+        final int score = scores[first];
+        final double rank = ranks[first];
+        final BigDecimal exactRank = exactRanks[first];
+        set(first, documentIds[second], scores[second], ranks[second], exactRanks[second]);
+        set(second, documentId, score, rank, exactRank);
+    }
+}
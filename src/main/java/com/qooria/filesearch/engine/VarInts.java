@@ -0,0 +1,124 @@
+package com.qooria.filesearch.engine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Variable-byte integers and front coding, shared by the encodings of the {@link FileTable}, the {@link TermDictionary}
+ * and the {@link CompressedPostings}.
+ * <p>
+ * A variable-byte integer is written seven bits at a time, lowest first, the high bit of a byte being set when more
+ * bytes follow, so small values take a single byte. Front coding stores a value as the length of the prefix it shares
+ * with the previous value, followed by its remaining bytes.
+ */
+final class VarInts {
+    private VarInts() {
+    }
+
+    /**
+     * Writes a variable-byte integer.
+     *
+     * @param data   The array to write to, with room for up to five bytes
+     * @param offset The offset to write at
+     * @param value  The value, not negative
+     * @return The offset after the value
+     */
+    static int write(final byte[] data, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            data[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Reads a variable-byte integer.
+     *
+     * @param data   The array to read from
+     * @param offset The offset of the value
+     * @return The value, taking {@link #length(int)} bytes
+     */
+    static int read(final byte[] data, int offset) {
+        byte b = data[offset++];
+        int value = b & 0x7F;
+
+        for (int shift = 7; b < 0; shift += 7) {
+            b = data[offset++];
+            value |= (b & 0x7F) << shift;
+        }
+
+        return value;
+    }
+
+    /**
+     * Reads a variable-byte integer.
+     *
+     * @param buffer {@link ByteBuffer} The buffer to read from
+     * @param offset The offset of the value
+     * @return The value, taking {@link #length(int)} bytes
+     */
+    static int read(final ByteBuffer buffer, int offset) {
+        byte b = buffer.get(offset++);
+        int value = b & 0x7F;
+
+        for (int shift = 7; b < 0; shift += 7) {
+            b = buffer.get(offset++);
+            value |= (b & 0x7F) << shift;
+        }
+
+        return value;
+    }
+
+    /**
+     * Skips a variable-byte integer without decoding it.
+     *
+     * @param data   The array to read from
+     * @param offset The offset of the value
+     * @return The offset after the value
+     */
+    static int skip(final byte[] data, int offset) {
+        while (data[offset++] < 0) {
+            // skip the bytes followed by more bytes
+        }
+        return offset;
+    }
+
+    /**
+     * Skips a variable-byte integer without decoding it.
+     *
+     * @param buffer {@link ByteBuffer} The buffer to read from
+     * @param offset The offset of the value
+     * @return The offset after the value
+     */
+    static int skip(final ByteBuffer buffer, int offset) {
+        while (buffer.get(offset++) < 0) {
+            // skip the bytes followed by more bytes
+        }
+        return offset;
+    }
+
+    /**
+     * Get the number of bytes a variable-byte integer takes.
+     *
+     * @param value The value, not negative
+     * @return The number of bytes
+     */
+    static int length(final int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Get the length of the prefix two values share, for front coding the second after the first.
+     *
+     * @param first  The previous value
+     * @param second The value to front code
+     * @return The length of the shared prefix
+     */
+    static int sharedPrefix(final byte[] first, final byte[] second) {
+        int shared = 0;
+        while (shared < Math.min(first.length, second.length) && first[shared] == second[shared]) {
+            shared++;
+        }
+        return shared;
+    }
+}
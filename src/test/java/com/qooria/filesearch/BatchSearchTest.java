@@ -0,0 +1,110 @@
+package com.qooria.filesearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.engine.SearchEngine;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchSearchTest {
+
+    @Test
+    public void run_withQueries_shouldWriteOneJsonLinePerQueryInOrder() throws IOException {
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.search("apple")).thenReturn(Arrays.asList(
+                new FileResult(100, new BigDecimal("1.5"), "/files/a \"1\".txt", null),
+                new FileResult(50, BigDecimal.ONE, "/files/b.txt", null)));
+        when(engine.search("cherry")).thenReturn(Collections.emptyList());
+        when(engine.search("apple AND")).thenThrow(new IllegalArgumentException(ConsoleMessage.INVALID_QUERY.getMessage()));
+
+        StringWriter output = new StringWriter();
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        new BatchSearch(engine, 2, output, new PrintStream(report)).run(new BufferedReader(new StringReader("apple\n\ncherry\napple AND\n")));
+
+        assertEquals("{\"query\":\"apple\",\"results\":[{\"path\":\"/files/a \\\"1\\\".txt\",\"score\":100,\"rank\":1.5},"
+                + "{\"path\":\"/files/b.txt\",\"score\":50,\"rank\":1}]}\n"
+                + "{\"query\":\"cherry\",\"results\":[]}\n"
+                + "{\"query\":\"apple AND\",\"error\":\"Invalid query\"}\n", output.toString());
+        assertTrue(report.toString().startsWith("3 queries in "), report.toString());
+        assertTrue(report.toString().contains(" queries/s, p50 "), report.toString());
+    }
+
+    @Test
+    public void run_withMoreQueriesThanInFlight_shouldKeepOrderOfQueries() throws IOException {
+        SearchEngine engine = mock(SearchEngine.class);
+        List<String> queries = IntStream.range(0, 500).mapToObj(i -> "word" + i).collect(Collectors.toList());
+
+        for (String query : queries) {
+            when(engine.search(query)).thenReturn(Collections.singletonList(new FileResult(100, BigDecimal.ONE, "/files/" + query, null)));
+        }
+
+        StringWriter output = new StringWriter();
+        new BatchSearch(engine, 4, output, new PrintStream(new ByteArrayOutputStream())).run(new BufferedReader(new StringReader(String.join("\n", queries))));
+
+        List<String> expected = new ArrayList<>();
+        for (String query : queries) {
+            expected.add("{\"query\":\"" + query + "\",\"results\":[{\"path\":\"/files/" + query + "\",\"score\":100,\"rank\":1}]}");
+        }
+
+        assertEquals(expected, Arrays.asList(output.toString().split("\n")));
+    }
+
+    @Test
+    public void run_withUnexpectedSearchFailure_shouldWriteErrorLineAndContinue() throws IOException {
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.search("apple")).thenThrow(new IllegalStateException());
+        when(engine.search("cherry")).thenReturn(Collections.emptyList());
+
+        StringWriter output = new StringWriter();
+        new BatchSearch(engine, 2, output, new PrintStream(new ByteArrayOutputStream())).run(new BufferedReader(new StringReader("apple\ncherry\n")));
+
+        assertEquals("{\"query\":\"apple\",\"error\":\"" + ConsoleMessage.SEARCH_FAILED.getMessage() + "\"}\n"
+                + "{\"query\":\"cherry\",\"results\":[]}\n", output.toString());
+    }
+
+    @Test
+    public void run_withFailingReader_shouldFlushResultsWritten() {
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.search("cherry")).thenReturn(Collections.emptyList());
+
+        StringWriter output = new StringWriter();
+        BatchSearch batch = new BatchSearch(engine, 1, new BufferedWriter(output), new PrintStream(new ByteArrayOutputStream()));
+        // One query more than are in flight, so that the first result is written before the reader fails.
+        BufferedReader queries = new BufferedReader(new StringReader("")) {
+            private int count;
+
+            @Override
+            public String readLine() throws IOException {
+                if (count++ == 17) {
+                    throw new IOException();
+                }
+                return "cherry";
+            }
+        };
+
+        assertThrows(IOException.class, () -> batch.run(queries));
+        assertEquals("{\"query\":\"cherry\",\"results\":[]}\n", output.toString());
+    }
+}
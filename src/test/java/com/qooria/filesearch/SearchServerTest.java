@@ -0,0 +1,143 @@
+package com.qooria.filesearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class SearchServerTest {
+    private static final String TEST_FILE_FOLDER = "test_files";
+
+    @Test
+    public void search_withQueryAndLimit_shouldAnswerJsonResultsOfEngine() throws IOException {
+        File directory = new File(this.getClass().getClassLoader().getResource(TEST_FILE_FOLDER).getFile());
+        SearchEngine engine = new SearchEngine(SearchOption.builder().withMaxResultCount(3).build());
+        engine.indexDirectory(directory.getAbsolutePath());
+
+        SearchServer server = new SearchServer(engine, 0, 2, 8);
+        server.start();
+
+        try {
+            String expected = SearchJson.results("simple test", engine.search("simple test"), 2).append('\n').toString();
+
+            assertEquals(expected, get(server, "/search?q=simple+test&limit=2", 200));
+            assertEquals(3, engine.search("lorem").size());
+            assertEquals(SearchJson.results("lorem", engine.search("lorem", 8), 8).append('\n').toString(), get(server, "/search?q=lorem&limit=8", 200));
+            assertEquals(8, engine.search("lorem", 8).size());
+            assertEquals("{\"query\":\"apple AND\",\"error\":\"Invalid query\"}\n", get(server, "/search?q=apple%20AND", 400));
+            assertEquals("{\"error\":\"Invalid input\"}\n", get(server, "/search?q=simple&limit=0", 400));
+            assertEquals("{\"error\":\"No search term entered\"}\n", get(server, "/search", 400));
+            assertEquals("{\"error\":\"Unknown path\"}\n", get(server, "/search/more", 404));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void search_withSaturatedWorkers_shouldRejectRequestsWithServiceUnavailable() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.search(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+
+        SearchServer server = new SearchServer(engine, 0, 1, 1);
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        CompletionService<String> responses = new ExecutorCompletionService<>(clients);
+        server.start();
+
+        try {
+            Future<String> running = clients.submit(() -> get(server, "/search?q=a", 200));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 3; i++) {
+                responses.submit(() -> request(server, "/search?q=b"));
+            }
+
+            String busy = "503 1 {\"error\":\"Too many queries in progress, retry later\"}\n";
+            assertEquals(busy, responses.poll(10, TimeUnit.SECONDS).get());
+            assertEquals(busy, responses.poll(10, TimeUnit.SECONDS).get());
+            release.countDown();
+
+            assertEquals("200 null {\"query\":\"b\",\"results\":[]}\n", responses.poll(10, TimeUnit.SECONDS).get());
+            assertEquals("{\"query\":\"a\",\"results\":[]}\n", running.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void search_withFailingEngine_shouldAnswerInternalServerError() throws IOException {
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.search(anyString())).thenThrow(new IllegalStateException("broken"));
+
+        SearchServer server = new SearchServer(engine, 0, 1, 1);
+        server.start();
+
+        try {
+            assertEquals("{\"query\":\"a\",\"error\":\"Search failed\"}\n", get(server, "/search?q=a", 500));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String get(SearchServer server, String path, int expectedStatus) throws IOException {
+        HttpURLConnection connection = open(server, path);
+        assertEquals(expectedStatus, connection.getResponseCode());
+        assertEquals("application/json; charset=utf-8", connection.getContentType());
+        return read(expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream());
+    }
+
+    private static String request(SearchServer server, String path) throws IOException {
+        HttpURLConnection connection = open(server, path);
+        int status = connection.getResponseCode();
+        String body = read(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+        return status + " " + connection.getHeaderField("Retry-After") + " " + body;
+    }
+
+    private static HttpURLConnection open(SearchServer server, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setReadTimeout(10000);
+        return connection;
+    }
+
+    private static String read(InputStream input) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (InputStream stream = input) {
+            byte[] buffer = new byte[4096];
+            for (int read = stream.read(buffer); read >= 0; read = stream.read(buffer)) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -5,9 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
+import com.qooria.filesearch.engine.SearchEngine;
+import com.qooria.filesearch.engine.SearchOption;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,7 +39,26 @@ public class SearchUtilTest {
         Command command = SearchUtil.getCommand(":list");
         command.execute();
 
-        assertEquals("[quit, list]\n", consoleOut.toString());
+        assertEquals("[quit, list, stats]\n", consoleOut.toString());
+    }
+
+    @Test
+    public void getCommand_withStatsCommand_shouldPrintRegisteredMetrics() throws Exception {
+        SearchEngine engine = new SearchEngine(SearchOption.builder().withMaxResultCount(10).build());
+        ObjectName name = engine.getMetrics().register("stats-test");
+
+        try {
+            engine.search("apple");
+            SearchUtil.getCommand(":stats").execute();
+
+            String output = consoleOut.toString();
+
+            assertTrue(output.contains(name.toString()));
+            assertTrue(output.contains("  QueryCount: 1\n"));
+            assertTrue(output.contains("  FilesWalked: 0\n"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
     }
 
     @Test
@@ -58,15 +81,6 @@ public class SearchUtilTest {
         assertFalse(SearchUtil.looksLikeCommand("list"));
     }
 
-    @Test
-    public void isTextFile_withValidFile_shouldReturnBoolean() {
-        File textFile = new File("/usr/test/test.txt");
-        assertTrue(SearchUtil.isTextFile(textFile));
-
-        File pdfFile = new File("/usr/test/test.pdf");
-        assertFalse(SearchUtil.isTextFile(pdfFile));
-    }
-
     @Test
     public void readFileContent_withValidFile_shouldReturnBoolean() {
         ClassLoader classLoader = this.getClass().getClassLoader();
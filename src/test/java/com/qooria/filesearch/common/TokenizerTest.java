@@ -0,0 +1,86 @@
+package com.qooria.filesearch.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenizerTest {
+    private static final String ALPHABET = "aZ09 -:,.\t\n\r'/\u00e9\u20ac";
+
+    @Test
+    public void sanitize_withRandomStrings_shouldMatchRegexSanitation() {
+        Random random = new Random(11);
+
+        for (int i = 0; i < 1000; i++) {
+            String string = randomString(random);
+
+            for (boolean caseSensitive : new boolean[]{false, true}) {
+                String expected = string.replaceAll("[^-:,. a-zA-Z0-9]", "").trim();
+                expected = caseSensitive ? expected : expected.toLowerCase();
+
+                assertEquals(expected, Tokenizer.sanitize(string, caseSensitive));
+            }
+        }
+    }
+
+    @Test
+    public void splitWords_withRandomSearchTerms_shouldKeepDistinctWordsSeparatedBySpaces() {
+        Random random = new Random(13);
+        Pattern word = Pattern.compile("^[a-zA-Z0-9]*$");
+
+        for (int i = 0; i < 1000; i++) {
+            String sanitized = Tokenizer.sanitize(randomString(random), false);
+            List<String> expected = sanitized.isEmpty() ? Collections.emptyList() : Arrays.stream(sanitized.split("\\s+"))
+                    .filter(w -> word.matcher(w).matches()).distinct().collect(Collectors.toList());
+
+            assertEquals(expected, Tokenizer.splitWords(sanitized));
+        }
+    }
+
+    @Test
+    public void finish_withCaseInsensitiveText_shouldCountSanitizedTerms() {
+        Tokenizer tokenizer = new Tokenizer(false);
+        tokenizer.accept("Is this\nIS, it's");
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("is", 1);
+        expected.put("thisis", 1);
+        expected.put("its", 1);
+
+        assertEquals(expected, tokenizer.finish());
+        assertEquals(Collections.emptyMap(), tokenizer.finish());
+    }
+
+    @Test
+    public void finishPositions_withText_shouldRecordPositionsOfTerms() {
+        Tokenizer tokenizer = new Tokenizer(false, true);
+        tokenizer.accept("The cat, the hat\nAnd THE bat");
+
+        Map<String, int[]> positions = tokenizer.finishPositions();
+
+        assertEquals(Arrays.asList("the", "cat", "the", "hatand", "the", "bat"), Tokenizer.splitTerms("The cat, the hat\nAnd THE bat", false));
+        assertEquals(Arrays.asList(0, 2, 4), Arrays.stream(positions.get("the")).boxed().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(3), Arrays.stream(positions.get("hatand")).boxed().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(5), Arrays.stream(positions.get("bat")).boxed().collect(Collectors.toList()));
+        assertEquals(Collections.emptyMap(), tokenizer.finishPositions());
+    }
+
+    private static String randomString(Random random) {
+        char[] chars = new char[random.nextInt(20)];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+
+        return new String(chars);
+    }
+}
@@ -0,0 +1,61 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+
+import org.junit.jupiter.api.Test;
+
+public class Bm25ScorerTest {
+
+    @Test
+    public void newDocumentScorer_withIndex_shouldRankWithLengthNormsAndInverseDocumentFrequencies() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("london bridge is falling down");
+        builder.addDocument("london london");
+        builder.addDocument("paris");
+        InvertedIndex index = builder.build();
+
+        PostingsList[] postings = {index.getPostings("london"), index.getPostings("rome")};
+        DocumentScorer scorer = new Bm25Scorer().newDocumentScorer(index, postings);
+
+        double averageLength = 8 / 3.0;
+        double idf = Math.log(1 + (3 - 2 + 0.5) / (2 + 0.5));
+        double norm = 1.2 * (1 - 0.75 + 0.75 * 2 / averageLength);
+
+        assertEquals(idf * 2 * 2.2 / (2 + norm), scorer.rank(1, new int[]{2, 0}), 1e-12);
+        assertEquals(0, scorer.rank(2, new int[]{0, 0}), 0);
+    }
+
+    @Test
+    public void getMaxRank_withIndexedBounds_shouldBoundRankOfEveryFile() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("london bridge is falling down");
+        builder.addDocument("london london");
+        builder.addDocument("london london london is a big city by the river");
+        builder.addDocument("paris");
+        InvertedIndex index = builder.build();
+
+        PostingsList[] postings = {index.getPostings("london"), index.getPostings("rome")};
+        DocumentScorer scorer = new Bm25Scorer().newDocumentScorer(index, postings);
+
+        assertEquals(3, postings[0].getMaxFrequency());
+        assertEquals(2, postings[0].getMinDocumentLength());
+        assertEquals(0, scorer.getMaxRank(1), 0);
+
+        int[] frequencies = {1, 2, 3};
+        for (int documentId = 0; documentId < frequencies.length; documentId++) {
+            assertTrue(scorer.rank(documentId, new int[]{frequencies[documentId], 0}) < scorer.getMaxRank(0));
+        }
+    }
+
+    @Test
+    public void constructor_withInvalidParameters_shouldThrowIllegalArgumentException() {
+        Throwable exception = assertThrows(IllegalArgumentException.class, () -> new Bm25Scorer(1.2, 1.5));
+
+        assertEquals(ConsoleMessage.INVALID_INPUT.getMessage(), exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new Bm25Scorer(-1, 0.75));
+    }
+}
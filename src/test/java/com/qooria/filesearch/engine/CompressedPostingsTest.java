@@ -0,0 +1,137 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CompressedPostingsTest {
+
+    @Test
+    public void cursor_withCompressedPostings_shouldReadSamePostings() {
+        Postings postings = randomPostings(new Random(3), 1000);
+        CompressedPostings compressed = CompressedPostings.of(postings);
+        PostingsCursor expected = postings.cursor();
+        PostingsCursor actual = compressed.cursor();
+
+        assertEquals(postings.size(), compressed.size());
+        assertTrue(compressed.getEncodedSize() < (long) postings.size() * 2 * Integer.BYTES);
+
+        while (expected.next() != PostingsCursor.NO_MORE_DOCUMENTS) {
+            assertEquals(expected.documentId(), actual.next());
+            assertEquals(expected.frequency(), actual.frequency());
+        }
+
+        assertEquals(PostingsCursor.NO_MORE_DOCUMENTS, actual.next());
+    }
+
+    @Test
+    public void advance_withTargets_shouldReachFirstFileAtOrAfterTarget() {
+        Random random = new Random(5);
+        Postings postings = randomPostings(random, 2000);
+        CompressedPostings compressed = CompressedPostings.of(postings);
+
+        for (int run = 0; run < 50; run++) {
+            PostingsCursor expected = postings.cursor();
+            PostingsCursor actual = compressed.cursor();
+            int target = 0;
+
+            while (actual.documentId() != PostingsCursor.NO_MORE_DOCUMENTS) {
+                target += random.nextInt(run < 25 ? 10 : 2000);
+
+                while (expected.documentId() < target) {
+                    expected.next();
+                }
+
+                assertEquals(expected.documentId(), actual.advance(target));
+
+                if (actual.documentId() != PostingsCursor.NO_MORE_DOCUMENTS) {
+                    assertEquals(expected.frequency(), actual.frequency());
+                    assertEquals(actual.documentId(), actual.advance(target));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void read_withWrittenPostings_shouldAdvanceOverMappedPostings(@TempDir Path tempDir) throws IOException {
+        Postings postings = randomPostings(new Random(11), 3000);
+        CompressedPostings compressed = CompressedPostings.of(postings);
+        Path file = tempDir.resolve("postings");
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(0);
+            compressed.writeTo(out);
+        }
+
+        CompressedPostings mapped = CompressedPostings.read(new MappedFile(file), Integer.BYTES);
+        PostingsCursor expected = postings.cursor();
+        PostingsCursor actual = mapped.cursor();
+
+        assertEquals(compressed.getWrittenSize() + Integer.BYTES, Files.size(file));
+        assertEquals(compressed.getEncodedSize(), mapped.getEncodedSize());
+
+        for (int target = 0; expected.advance(target) != PostingsCursor.NO_MORE_DOCUMENTS; target = expected.documentId() + 500) {
+            assertEquals(expected.documentId(), actual.advance(target));
+            assertEquals(expected.frequency(), actual.frequency());
+        }
+
+        assertEquals(PostingsCursor.NO_MORE_DOCUMENTS, actual.advance(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void nextPosition_withPositionalPostings_shouldReadPositionsAndSkipUnreadOnes() {
+        Random random = new Random(7);
+        Postings postings = new Postings(1, true);
+
+        for (int documentId = 0; documentId < 1000; documentId += 1 + random.nextInt(3)) {
+            int[] positions = new int[1 + random.nextInt(5)];
+            for (int i = 0, position = 0; i < positions.length; i++) {
+                position += random.nextInt(i == 0 ? 1000 : 200) + (i == 0 ? 0 : 1);
+                positions[i] = position;
+            }
+            postings.add(documentId, positions);
+        }
+
+        CompressedPostings compressed = CompressedPostings.of(postings.copy());
+        PostingsCursor expected = postings.cursor();
+        PostingsCursor actual = compressed.cursor();
+
+        assertTrue(compressed.hasPositions());
+
+        while (expected.next() != PostingsCursor.NO_MORE_DOCUMENTS) {
+            int target = expected.documentId();
+
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+
+            assertEquals(target, actual.advance(target));
+            assertEquals(expected.frequency(), actual.frequency());
+
+            int read = random.nextInt(expected.frequency() + 1);
+            for (int i = 0; i < read; i++) {
+                assertEquals(expected.nextPosition(), actual.nextPosition());
+            }
+        }
+    }
+
+    private static Postings randomPostings(Random random, int size) {
+        Postings postings = new Postings(size);
+        int documentId = random.nextInt(5);
+
+        for (int i = 0; i < size; i++) {
+            postings.add(documentId, 1 + random.nextInt(random.nextBoolean() ? 3 : 100000));
+            documentId += 1 + random.nextInt(random.nextBoolean() ? 2 : 300);
+        }
+
+        return postings.copy();
+    }
+}
@@ -0,0 +1,46 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DirectoryWatcherTest {
+
+    @Test
+    public void start_withFailingUpdate_shouldKeepWatchingChanges(@TempDir Path tempDir) throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        SearchEngine engine = mock(SearchEngine.class);
+        when(engine.updateDirectory(anyString())).thenAnswer(invocation -> {
+            if (failed.getCount() > 0) {
+                failed.countDown();
+                throw new UncheckedIOException(new IOException("unreadable"));
+            }
+            updated.countDown();
+            return Collections.emptyList();
+        });
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher(engine, tempDir.toString())) {
+            watcher.start();
+
+            Files.write(tempDir.resolve("a.txt"), "london".getBytes());
+            assertTrue(failed.await(10, TimeUnit.SECONDS));
+
+            Files.write(tempDir.resolve("b.txt"), "paris".getBytes());
+            assertTrue(updated.await(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class EmphasisScorerTest {
+
+    @Test
+    public void newDocumentScorer_withEmphasisBelowDoublePrecision_shouldRankWithEmphasisOfZero() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("london");
+        InvertedIndex index = builder.build();
+
+        DocumentScorer scorer = new EmphasisScorer().newDocumentScorer(index, new PostingsList[]{index.getPostings("london")});
+
+        assertEquals(0.25 + 0.1 * 0.85 + 100, scorer.rank(0, new int[]{1}), 1e-12);
+
+        for (int i = 0; i < 100_000; i++) {
+            scorer.rank(0, new int[]{1});
+        }
+
+        assertEquals(100.25, scorer.rank(0, new int[]{1}), 0);
+    }
+}
@@ -0,0 +1,60 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+import com.qooria.filesearch.dto.IndexedFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class FileTableTest {
+
+    @Test
+    public void getPath_withFilesSharingDirectories_shouldReturnEveryFileAsAdded() {
+        Random random = new Random(23);
+        List<IndexedFile> files = new ArrayList<>();
+        FileTable.Builder builder = FileTable.builder();
+
+        for (int i = 0; i < 1000; i++) {
+            String directory = "/data/" + (char) ('a' + random.nextInt(3)) + "/caf\u00e9-" + random.nextInt(4);
+            String name = random.nextInt(5) == 0 ? "" : "file-" + random.nextInt(100) + ".txt";
+            IndexedFile file = new IndexedFile(directory + "/" + name, i % 3 == 0 ? null : "content " + i, random.nextLong(), i);
+            files.add(file);
+
+            assertEquals(i, builder.add(file));
+        }
+
+        FileTable table = builder.build();
+
+        assertEquals(files.size(), table.getDocumentCount());
+
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals(files.get(i).getPath(), table.getPath(i));
+            assertEquals(files.get(i).getContent(), table.getContent(i));
+            assertEquals(files.get(i).getLastModified(), table.getLastModified(i));
+            assertEquals(files.get(i).getSize(), table.getSize(i));
+        }
+
+        FileTable.Builder copy = FileTable.builder();
+        copy.addAll(table);
+
+        assertEquals(files.get(999).getPath(), copy.build().getFiles().get(999).getPath());
+    }
+
+    @Test
+    public void getContent_withoutRetainedContent_shouldReturnNullAndRejectUnknownIds() {
+        FileTable.Builder builder = FileTable.builder();
+        builder.add(new IndexedFile("/a.txt", null, 1, 2));
+        FileTable table = builder.build();
+
+        assertNull(table.getContent(0));
+        assertEquals("/a.txt", table.getFiles().get(0).getPath());
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getPath(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> FileTable.EMPTY.getPath(0));
+    }
+}
@@ -0,0 +1,91 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.qooria.filesearch.common.SearchUtil;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileTokenizerTest {
+
+    @Test
+    public void countTerms_withSmallChunks_shouldCountSameTermsAsWholeContent(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("a.txt");
+        Files.write(file, "Stra\u00dfe caf\u00e9 na\u00efve\r\nLONDON-bridge, is\tfalling down.\n\u20ac100 \ud83d\ude00 end".getBytes(StandardCharsets.UTF_8));
+
+        for (boolean caseSensitive : new boolean[]{false, true}) {
+            String content = SearchUtil.readFileContent(file.toFile());
+            content = caseSensitive ? content : SearchUtil.sanitize(content, false);
+            Map<String, Integer> expected = InvertedIndex.countTerms(content);
+
+            for (int chunkSize : new int[]{1, 2, 3, 7, 64 * 1024}) {
+                assertEquals(expected, new FileTokenizer(caseSensitive, chunkSize).countTerms(file));
+            }
+        }
+    }
+
+    @Test
+    public void countTerms_withMalformedInput_shouldReplaceMalformedBytes(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("a.txt");
+        Files.write(file, new byte[]{'a', 'b', (byte) 0xC3, 'c', ' ', 'd'});
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("ab", 1);
+        expected.put("c", 1);
+        expected.put("d", 1);
+
+        assertEquals(expected, new FileTokenizer(true).countTerms(file));
+    }
+
+    @Test
+    public void countTerms_withMappedFile_shouldFindSameTermsAsDecodedFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("a.txt");
+        byte[] text = "\ufeffStra\u00dfe caf\u00e9 na\u00efve\r\nLONDON-bridge, is\tfalling down.\n\u20ac100 \ud83d\ude00 end".getBytes(StandardCharsets.UTF_8);
+        byte[] malformed = {'a', 'b', (byte) 0xC3, 'c', ' ', (byte) 0xE2, (byte) 0x82, 'd', 'e', (byte) 0xF0};
+        byte[] content = new byte[text.length + malformed.length];
+        System.arraycopy(text, 0, content, 0, text.length);
+        System.arraycopy(malformed, 0, content, text.length, malformed.length);
+        Files.write(file, content);
+
+        for (boolean caseSensitive : new boolean[]{false, true}) {
+            FileTokenizer decodingTokenizer = new FileTokenizer(caseSensitive, 7);
+            FileTokenizer mappingTokenizer = new FileTokenizer(caseSensitive, 7, 0);
+
+            assertEquals(decodingTokenizer.countTerms(file), mappingTokenizer.countTerms(file));
+
+            Map<String, int[]> expectedPositions = decodingTokenizer.findPositions(file);
+            Map<String, int[]> positions = mappingTokenizer.findPositions(file);
+
+            assertEquals(expectedPositions.keySet(), positions.keySet());
+            expectedPositions.forEach((term, expected) -> assertArrayEquals(expected, positions.get(term)));
+        }
+    }
+
+    @Test
+    public void countTerms_withGzipExtractor_shouldCountTermsOfDecompressedContent(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("a.txt");
+        Path compressedFile = tempDir.resolve("a.txt.gz");
+        byte[] content = "Stra\u00dfe caf\u00e9 na\u00efve\r\nLONDON-bridge, is\tfalling down.\n\u20ac100 end".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(compressedFile))) {
+            output.write(content);
+        }
+
+        for (int chunkSize : new int[]{1, 7, 64 * 1024}) {
+            FileTokenizer tokenizer = new FileTokenizer(false, chunkSize);
+
+            assertEquals(tokenizer.countTerms(file), tokenizer.countTerms(compressedFile, Extractor.GZIP));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class InvertedIndexTest {
+
+    @Test
+    public void addDocument_withContent_shouldIndexTermsWithFrequencies() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("the quick brown fox, the lazy dog.");
+        builder.addDocument("the-end");
+
+        InvertedIndex index = builder.build();
+
+        assertEquals(2, index.getDocumentCount());
+        assertEquals(7, index.getTerms().size());
+        assertEquals(7, index.getDocumentLength(0));
+        assertEquals(2, index.getDocumentLength(1));
+        assertEquals(9, index.getTotalLength());
+
+        PostingsList the = index.getPostings("the");
+        PostingsCursor cursor = the.cursor();
+        assertEquals(2, the.size());
+        assertEquals(0, cursor.next());
+        assertEquals(2, cursor.frequency());
+        assertEquals(1, cursor.next());
+        assertEquals(1, cursor.frequency());
+        assertEquals(PostingsCursor.NO_MORE_DOCUMENTS, cursor.next());
+
+        assertEquals(1, index.getPostings("fox").size());
+        assertNull(index.getPostings("cat"));
+        assertEquals(Arrays.asList("the"), index.getTerms("th"));
+        assertEquals(Arrays.asList("dog", "end"), index.getTerms().subList(1, 3));
+    }
+
+    @Test
+    public void build_withDocumentsAddedAfterwards_shouldNotChangeBuiltIndex() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("london");
+
+        InvertedIndex index = builder.build();
+        builder.addDocument("london");
+
+        assertEquals(1, index.getDocumentCount());
+        assertEquals(1, index.getPostings("london").size());
+        assertEquals(2, builder.build().getPostings("london").size());
+    }
+
+    @Test
+    public void addIndex_withFilesKeepingTheirIds_shouldReusePostingsOfUnchangedTerms() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("alpha beta");
+        builder.addDocument("beta gamma");
+        builder.addDocument("delta");
+        InvertedIndex index = builder.build();
+
+        InvertedIndex.Builder update = InvertedIndex.builder();
+        update.addIndex(index, new int[]{0, -1, 2});
+        update.addDocument(1, Collections.singletonMap("epsilon", 2));
+        update.addDocument(3, Collections.singletonMap("alpha", 1));
+        InvertedIndex updated = update.build();
+
+        assertEquals(4, updated.getDocumentCount());
+        assertEquals(2, updated.getDocumentLength(1));
+        assertSame(index.getPostings("delta"), updated.getPostings("delta"));
+        assertNull(updated.getPostings("gamma"));
+        assertEquals(1, updated.getPostings("beta").size());
+
+        PostingsCursor cursor = updated.getPostings("epsilon").cursor();
+        assertEquals(1, cursor.next());
+        assertEquals(2, cursor.frequency());
+
+        cursor = updated.getPostings("alpha").cursor();
+        assertEquals(0, cursor.next());
+        assertEquals(3, cursor.next());
+        assertEquals(PostingsCursor.NO_MORE_DOCUMENTS, cursor.next());
+    }
+
+    @Test
+    public void addIndex_withRenumberedFiles_shouldRenumberEveryPostingsList() {
+        InvertedIndex.Builder builder = InvertedIndex.builder();
+        builder.addDocument("alpha");
+        builder.addDocument("beta");
+        InvertedIndex index = builder.build();
+
+        InvertedIndex.Builder update = InvertedIndex.builder();
+        update.addIndex(index, new int[]{-1, 0});
+        InvertedIndex updated = update.build();
+
+        assertEquals(1, updated.getDocumentCount());
+        assertNull(updated.getPostings("alpha"));
+        assertEquals(0, updated.getPostings("beta").cursor().next());
+    }
+}
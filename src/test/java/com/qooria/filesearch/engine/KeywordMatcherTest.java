@@ -0,0 +1,62 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+public class KeywordMatcherTest {
+
+    @Test
+    public void count_withOverlappingOccurrences_shouldCountEveryOccurrence() {
+        KeywordMatcher matcher = new KeywordMatcher(Collections.singletonList("aa"));
+        int[] counts = new int[1];
+
+        assertEquals(2, matcher.count("aaa", counts));
+        assertArrayEquals(new int[]{2}, counts);
+    }
+
+    @Test
+    public void count_withSeveralKeywords_shouldCountAllKeywordsInOnePass() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("is", "this", "his", "a"));
+        int[] counts = new int[4];
+
+        int total = matcher.count("this is a thistle, isn't it", counts);
+
+        assertArrayEquals(new int[]{4, 2, 2, 1}, counts);
+        assertEquals(9, total);
+    }
+
+    @Test
+    public void count_withNonWordCharacters_shouldNotMatchAcrossThem() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("ab", "B"));
+        int[] counts = new int[2];
+
+        assertEquals(2, matcher.count("a b a-b ab aB", counts));
+        assertArrayEquals(new int[]{1, 1}, counts);
+    }
+
+    @Test
+    public void count_withUtf8Bytes_shouldCountLikeCharacters() {
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("caf", "ab"));
+        String text = "caf\u00e9ab abcaf";
+        byte[] bytes = (text + "ab").getBytes(StandardCharsets.UTF_8);
+        int[] expected = new int[2];
+        int[] counts = new int[2];
+
+        assertEquals(matcher.count(text, expected), matcher.count(bytes, bytes.length - 2, counts));
+        assertArrayEquals(new int[]{2, 2}, counts);
+        assertArrayEquals(expected, counts);
+    }
+
+    @Test
+    public void constructor_withNonWordKeyword_shouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(Collections.singletonList("a b")));
+    }
+}
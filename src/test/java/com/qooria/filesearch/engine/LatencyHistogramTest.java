@@ -0,0 +1,51 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void getPercentile_withRandomDurations_shouldBeWithinBucketPrecisionOfExactPercentile() {
+        Random random = new Random(5);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 25);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.getPercentile(percentile);
+
+            assertTrue(estimate >= exact, percentile + ": " + estimate + " < " + exact);
+            assertTrue(estimate <= exact + exact / 16, percentile + ": " + estimate + " > " + exact);
+        }
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(Arrays.stream(values).average().getAsDouble(), histogram.getMean(), 1e-6);
+    }
+
+    @Test
+    public void bucketOf_withEveryMagnitude_shouldFallInBucketWhoseHighestValueIsNotLower() {
+        for (int bit = 0; bit < 63; bit++) {
+            for (long value : new long[]{(1L << bit) - 1, 1L << bit, (1L << bit) + 1, Long.MAX_VALUE >>> (62 - bit)}) {
+                int bucket = LatencyHistogram.bucketOf(value);
+
+                assertTrue(LatencyHistogram.highestValueOf(bucket) >= value);
+                assertTrue(bucket == 0 || LatencyHistogram.highestValueOf(bucket - 1) < value);
+            }
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+}
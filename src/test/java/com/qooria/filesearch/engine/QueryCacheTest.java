@@ -0,0 +1,94 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.qooria.filesearch.dto.FileResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryCacheTest {
+    private static final IndexSnapshot INDEX = new IndexSnapshot(FileTable.EMPTY, InvertedIndex.builder().build());
+
+    @Test
+    public void put_withMoreEntriesThanMaxEntries_shouldEvictLeastRecentlyUsedEntry() {
+        QueryCache cache = new QueryCache(2, SearchOption.DEFAULT_QUERY_CACHE_BYTES);
+
+        cache.put("a ", INDEX, results(1));
+        cache.put("b ", INDEX, results(1));
+        cache.get("a ", INDEX);
+        cache.put("c ", INDEX, results(1));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("b ", INDEX));
+        assertEquals(1, cache.get("a ", INDEX).size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void put_withMoreBytesThanMaxBytes_shouldEvictEntriesUntilWithinBound() {
+        QueryCache cache = new QueryCache(100, 1000);
+
+        cache.put("a ", INDEX, results(4));
+        cache.put("b ", INDEX, results(4));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("a ", INDEX));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(96 + 2 * 2 + (104 + 2 * 6) * 4, cache.getEstimatedBytes());
+
+        List<FileResult> results = results(20);
+
+        assertSame(results, cache.put("c ", INDEX, results));
+        assertNull(cache.get("c ", INDEX));
+    }
+
+    @Test
+    public void get_withOtherIndex_shouldMissAndDropEntry() {
+        QueryCache cache = new QueryCache(10, SearchOption.DEFAULT_QUERY_CACHE_BYTES);
+        cache.put("a ", INDEX, results(1));
+
+        assertEquals("/file0", cache.get("a ", INDEX).get(0).getPath());
+        assertNull(cache.get("a ", IndexSnapshot.EMPTY));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+
+    @Test
+    public void get_withResultsChangedByCaller_shouldReturnCachedResultsUnchanged() {
+        QueryCache cache = new QueryCache(10, SearchOption.DEFAULT_QUERY_CACHE_BYTES);
+        List<FileResult> results = results(2);
+
+        cache.put("a ", INDEX, results);
+        results.get(0).setPath("/changed");
+
+        List<FileResult> cached = cache.get("a ", INDEX);
+        cached.get(1).addScore(5);
+        cached.remove(0);
+
+        List<FileResult> again = cache.get("a ", INDEX);
+
+        assertNotSame(cached, again);
+        assertEquals(2, again.size());
+        assertEquals("/file0", again.get(0).getPath());
+        assertEquals(100, again.get(1).getScore());
+    }
+
+    private static List<FileResult> results(int count) {
+        List<FileResult> results = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            results.add(new FileResult(100, BigDecimal.ONE, "/file" + i, null));
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,80 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryParserTest {
+
+    @Test
+    public void parse_withWordsPhrasesAndJoins_shouldReturnDistinctClausesInOrder() {
+        List<QueryClause> clauses = QueryParser.parse("Error \"connection, RESET\" error NEAR/5 timeout \"x\" a-b retry", false).getClauses();
+
+        assertEquals(Arrays.asList("error", "\"connection reset\"", "error NEAR/5 timeout", "x", "retry"),
+                clauses.stream().map(QueryClause::getText).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(true, false, false, true, true),
+                clauses.stream().map(QueryClause::isWord).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parse_withoutQuotesOrJoins_shouldReturnSameWordsAsSanitizedTerm() {
+        List<QueryClause> clauses = QueryParser.parse("  the Brown fox, the lazy-dog near/5 it's  ", false).getClauses();
+
+        assertEquals(Arrays.asList("the", "brown", "near5", "its"), clauses.stream().map(QueryClause::getText).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parse_withDanglingJoin_shouldThrowIllegalArgumentException() {
+        for (String query : Arrays.asList("NEAR/3 timeout", "error NEAR/3", "\"a b\" NEAR/3 c", "a NEAR/3 b-c")) {
+            Throwable exception = assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(query, false));
+
+            assertEquals(ConsoleMessage.INVALID_QUERY.getMessage(), exception.getMessage());
+        }
+    }
+
+    @Test
+    public void parse_withOperatorsAndGroups_shouldScoreClausesOutsideNegations() {
+        Query query = QueryParser.parse("(error OR warning) AND NOT debug \"stack trace\" NOT (trace AND error)", false);
+
+        assertEquals(Arrays.asList("error", "warning", "\"stack trace\"", "debug", "trace"),
+                query.getClauses().stream().map(QueryClause::getText).collect(Collectors.toList()));
+        assertEquals(3, query.getScoredClauseCount());
+        assertTrue(query.isBoolean());
+        assertFalse(QueryParser.parse("(error OR warning) timeout", false).isBoolean());
+        assertEquals(Arrays.asList("and", "or"),
+                QueryParser.parse("and or", false).getClauses().stream().map(QueryClause::getText).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parse_withParenthesesOrUpperCaseOperators_shouldSplitWordsAndKeepOtherCasesAsWords() {
+        assertEquals(Arrays.asList("foo", "bar"), texts(QueryParser.parse("foo(bar)", false)));
+        assertEquals(Arrays.asList("rock", "roll"), texts(QueryParser.parse("rock AND roll", false)));
+        assertEquals(Arrays.asList("rock", "and", "roll"), texts(QueryParser.parse("Rock And roll", false)));
+        assertEquals(Arrays.asList("rock", "not", "roll"), texts(QueryParser.parse("rock not roll", false)));
+        assertEquals(texts(QueryParser.parse("apple durian", false)), texts(QueryParser.parse("(apple OR durian)", false)));
+        assertFalse(QueryParser.parse("(apple OR durian)", false).isBoolean());
+        assertTrue(QueryParser.parse("rock AND roll", false).isBoolean());
+    }
+
+    @Test
+    public void parse_withDanglingOperatorOrOnlyNegations_shouldThrowIllegalArgumentException() {
+        for (String query : Arrays.asList("error AND", "error OR", "AND error", "error AND OR timeout", "(error AND) timeout", "NOT", "NOT error")) {
+            Throwable exception = assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(query, false));
+
+            assertEquals(ConsoleMessage.INVALID_QUERY.getMessage(), exception.getMessage());
+        }
+    }
+
+    private static List<String> texts(Query query) {
+        return query.getClauses().stream().map(QueryClause::getText).collect(Collectors.toList());
+    }
+}
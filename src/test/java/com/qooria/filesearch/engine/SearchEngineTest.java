@@ -3,6 +3,9 @@ package com.qooria.filesearch.engine;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,14 +15,26 @@ import com.qooria.filesearch.dto.IndexedFile;
 import com.qooria.filesearch.common.ConsoleMessage;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class SearchEngineTest {
     private static final String TEST_FILE_FOLDER = "test_files";
@@ -31,6 +46,7 @@ public class SearchEngineTest {
                 .builder()
                 .withCaseSensitive(false)
                 .withMaxResultCount(10)
+                .withRetainContent(true)
                 .build();
 
         engine = new SearchEngine(options);
@@ -80,6 +96,69 @@ public class SearchEngineTest {
         assertEquals("this could be done better", firstFile.getContent());
     }
 
+    @Test
+    public void indexDirectory_withoutRetainedContent_shouldStreamFilesAndReturnSameResults() throws FileNotFoundException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        for (boolean caseSensitive : new boolean[]{false, true}) {
+            SearchOption options = SearchOption.builder().withCaseSensitive(caseSensitive).withMaxResultCount(30).build();
+            SearchEngine streamingEngine = new SearchEngine(options);
+            SearchEngine retainingEngine = new SearchEngine(SearchOption.builder().withCaseSensitive(caseSensitive)
+                    .withMaxResultCount(30).withRetainContent(true).build());
+
+            List<IndexedFile> streamedFiles = streamingEngine.indexDirectory(file.getAbsolutePath());
+            retainingEngine.indexDirectory(file.getAbsolutePath());
+
+            assertTrue(streamedFiles.stream().allMatch(f -> f.getContent() == null));
+
+            String term = "the brown fox cannot jump over a lazy dog in a place you raise kids in america is a correct statement";
+            List<FileResult> streamedResults = streamingEngine.search(term);
+            List<FileResult> retainedResults = retainingEngine.search(term);
+
+            assertEquals(retainedResults.size(), streamedResults.size());
+
+            for (int i = 0; i < retainedResults.size(); i++) {
+                assertNull(streamedResults.get(i).getContent());
+                assertEquals(retainedResults.get(i).getPath(), streamedResults.get(i).getPath());
+                assertEquals(0, retainedResults.get(i).getRank().compareTo(streamedResults.get(i).getRank()));
+            }
+        }
+    }
+
+    @Test
+    public void indexDirectory_withIndexingThreads_shouldIndexSameFilesInSameOrderAsSequentialIndexing() throws FileNotFoundException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+        SearchOption options = SearchOption
+                .builder()
+                .withCaseSensitive(false)
+                .withMaxResultCount(10)
+                .withIndexingThreads(4)
+                .withRetainContent(true)
+                .build();
+        SearchEngine parallelEngine = new SearchEngine(options);
+
+        List<IndexedFile> sequentialFiles = engine.indexDirectory(file.getAbsolutePath());
+        List<IndexedFile> parallelFiles = parallelEngine.indexDirectory(file.getAbsolutePath());
+
+        assertEquals(sequentialFiles.stream().map(IndexedFile::getPath).collect(Collectors.toList()),
+                parallelFiles.stream().map(IndexedFile::getPath).collect(Collectors.toList()));
+        assertEquals(sequentialFiles.stream().map(IndexedFile::getContent).collect(Collectors.toList()),
+                parallelFiles.stream().map(IndexedFile::getContent).collect(Collectors.toList()));
+
+        String term = "the brown fox cannot jump over a lazy dog in a place you raise kids in america is a correct statement";
+        List<FileResult> sequentialResults = engine.search(term);
+        List<FileResult> parallelResults = parallelEngine.search(term);
+
+        assertEquals(sequentialResults.size(), parallelResults.size());
+
+        for (int i = 0; i < sequentialResults.size(); i++) {
+            assertEquals(sequentialResults.get(i).getPath(), parallelResults.get(i).getPath());
+            assertEquals(0, sequentialResults.get(i).getRank().compareTo(parallelResults.get(i).getRank()));
+        }
+    }
+
     @Test
     public void getIndexedFiles_withFilesInMemory_shouldReturnListOfIndexedFilesFromDirectoryAndSubdirectory() throws FileNotFoundException {
         ClassLoader classLoader = this.getClass().getClassLoader();
@@ -102,6 +181,135 @@ public class SearchEngineTest {
         assertTrue(indexedFileNames.containsAll(expectedIndexedFileNames));
     }
 
+    @Test
+    public void loadIndex_withWrittenIndex_shouldReturnSameFilesAndSearchResults(@TempDir Path tempDir) throws IOException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+        String indexFile = tempDir.resolve("test.idx").toString();
+
+        List<IndexedFile> indexedFiles = engine.indexDirectory(file.getAbsolutePath());
+        engine.writeIndex(indexFile);
+
+        SearchEngine loadedEngine = new SearchEngine(engine.getOptions());
+        List<IndexedFile> loadedFiles = loadedEngine.loadIndex(indexFile);
+
+        assertEquals(indexedFiles.stream().map(IndexedFile::getPath).collect(Collectors.toList()),
+                loadedFiles.stream().map(IndexedFile::getPath).collect(Collectors.toList()));
+
+        String term = "the brown fox cannot jump over a lazy dog in a place you raise kids in america is a correct statement";
+        List<FileResult> results = engine.search(term);
+        List<FileResult> loadedResults = loadedEngine.search(term);
+
+        assertEquals(results.size(), loadedResults.size());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getPath(), loadedResults.get(i).getPath());
+            assertEquals(results.get(i).getScore(), loadedResults.get(i).getScore());
+            assertEquals(0, results.get(i).getRank().compareTo(loadedResults.get(i).getRank()));
+        }
+
+        assertTrue(loadedEngine.search("CLAP").isEmpty());
+    }
+
+    @Test
+    public void loadIndex_withDifferentCaseSensitivity_shouldThrowIllegalArgumentException(@TempDir Path tempDir) throws IOException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+        String indexFile = tempDir.resolve("test.idx").toString();
+
+        engine.indexDirectory(file.getAbsolutePath());
+        engine.writeIndex(indexFile);
+
+        SearchEngine caseSensitiveEngine = new SearchEngine(SearchOption.builder().withCaseSensitive(true).withMaxResultCount(10).build());
+
+        Throwable exception = assertThrows(IllegalArgumentException.class,
+                () -> caseSensitiveEngine.loadIndex(indexFile),
+                "Expected IllegalArgumentException but it wasn't thrown");
+
+        assertEquals(ConsoleMessage.INDEX_CASE_SENSITIVITY_MISMATCH.getMessage(), exception.getMessage());
+    }
+
+    @Test
+    public void updateDirectory_withChangedFiles_shouldReadOnlyChangedFilesAndMatchNewIndex(@TempDir Path tempDir) throws IOException {
+        Files.write(tempDir.resolve("a.txt"), "london is a city".getBytes());
+        Files.write(tempDir.resolve("b.txt"), "paris is a city".getBytes());
+        Files.write(tempDir.resolve("c.txt"), "rome is a city".getBytes());
+
+        List<IndexedFile> indexedFiles = engine.indexDirectory(tempDir.toString());
+        IndexedFile unchangedFile = indexedFiles.get(0);
+
+        Files.write(tempDir.resolve("b.txt"), "paris is a city in france".getBytes());
+        tempDir.resolve("b.txt").toFile().setLastModified(indexedFiles.get(1).getLastModified() + 2000);
+        Files.delete(tempDir.resolve("c.txt"));
+        Files.write(tempDir.resolve("d.txt"), "london is in england".getBytes());
+
+        List<IndexedFile> updatedFiles = engine.updateDirectory(tempDir.toString());
+
+        SearchEngine newEngine = new SearchEngine(engine.getOptions());
+        List<IndexedFile> newFiles = newEngine.indexDirectory(tempDir.toString());
+
+        assertSame(unchangedFile.getContent(), updatedFiles.get(0).getContent());
+        assertEquals(newFiles.stream().map(IndexedFile::getContent).collect(Collectors.toList()),
+                updatedFiles.stream().map(IndexedFile::getContent).collect(Collectors.toList()));
+
+        for (String term : Arrays.asList("london", "city", "france", "rome")) {
+            List<FileResult> results = engine.search(term);
+            List<FileResult> newResults = newEngine.search(term);
+
+            assertEquals(newResults.size(), results.size());
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(newResults.get(i).getPath(), results.get(i).getPath());
+                assertEquals(0, newResults.get(i).getRank().compareTo(results.get(i).getRank()));
+            }
+        }
+    }
+
+    @Test
+    public void updateDirectory_withLoadedIndex_shouldKeepUnchangedFilesFromIndex(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        String indexFile = tempDir.resolve("test.idx").toString();
+        Files.write(directory.resolve("a.txt"), "london is a city".getBytes());
+        Files.write(directory.resolve("b.txt"), "paris is a city".getBytes());
+
+        engine.indexDirectory(directory.toString());
+        engine.writeIndex(indexFile);
+
+        Files.write(directory.resolve("c.txt"), "london bridge".getBytes());
+
+        SearchEngine loadedEngine = new SearchEngine(engine.getOptions());
+        loadedEngine.loadIndex(indexFile);
+        List<IndexedFile> updatedFiles = loadedEngine.updateDirectory(directory.toString());
+
+        assertEquals(3, updatedFiles.size());
+        assertNull(updatedFiles.get(0).getContent());
+        assertEquals("london bridge", updatedFiles.get(2).getContent());
+        assertEquals(2, loadedEngine.search("london").size());
+    }
+
+    @Test
+    public void writeIndex_withIndexLoadedFromSameFileAndUpdated_shouldReplaceIndexFile(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        String indexFile = tempDir.resolve("test.idx").toString();
+        Files.write(directory.resolve("a.txt"), "london is a city".getBytes());
+
+        engine.indexDirectory(directory.toString());
+        engine.writeIndex(indexFile);
+
+        SearchEngine loadedEngine = new SearchEngine(engine.getOptions());
+        loadedEngine.loadIndex(indexFile);
+        loadedEngine.writeIndex(indexFile);
+        Files.write(directory.resolve("b.txt"), "london bridge".getBytes());
+        loadedEngine.updateDirectory(directory.toString());
+        loadedEngine.writeIndex(indexFile);
+
+        SearchEngine reloadedEngine = new SearchEngine(engine.getOptions());
+
+        assertEquals(2, reloadedEngine.loadIndex(indexFile).size());
+        assertEquals(2, reloadedEngine.search("london").size());
+        assertEquals(1, tempDir.toFile().listFiles(File::isFile).length);
+    }
+
     @Test
     public void getOptions_withInjectedOptions_shouldReturnOption() throws FileNotFoundException {
         SearchOption option = engine.getOptions();
@@ -169,7 +377,7 @@ public class SearchEngineTest {
 
         FileResult first = results.get(0);
         assertEquals(75, first.getScore());
-        assertTrue(first.getRank().compareTo(new BigDecimal("75.2531441011006728598113433")) == 0);
+        assertTrue(first.getRank().compareTo(new BigDecimal("75.2742367840155858598113433")) == 0);
         assertTrue(first.getPath().endsWith("test24.txt"));
 
         /*
@@ -178,33 +386,33 @@ public class SearchEngineTest {
          */
         FileResult second = results.get(1);
         assertEquals(75, second.getScore());
-        assertTrue(second.getRank().compareTo(new BigDecimal("75.2531413840309624380581992")) == 0);
+        assertTrue(second.getRank().compareTo(new BigDecimal("75.2531413840155858597694087255807")) == 0);
         assertTrue(second.getPath().endsWith("test3.txt"));
 
         FileResult third = results.get(2);
         assertEquals(70, third.getScore());
-        assertTrue(third.getRank().compareTo(new BigDecimal("70.2531170840905416395987669")) == 0);
+        assertTrue(third.getRank().compareTo(new BigDecimal("70.25311708365088902991927365269")) == 0);
         assertTrue(third.getPath().endsWith("test2.txt"));
 
         FileResult fourth = results.get(3);
         assertEquals(50, fourth.getScore());
-        assertTrue(fourth.getRank().compareTo(new BigDecimal("50.289239562")) == 0);
+        assertTrue(fourth.getRank().compareTo(new BigDecimal("50.2531278812938526104254890427207")) == 0);
         assertTrue(fourth.getPath().endsWith("test4.txt"));
 
         FileResult fifth = results.get(4);
         assertEquals(45, fifth.getScore());
-        assertTrue(fifth.getRank().compareTo(new BigDecimal("45.29820495043")) == 0);
+        assertTrue(fifth.getRank().compareTo(new BigDecimal("45.253114381293787000584595187281621")) == 0);
         assertTrue(fifth.getPath().endsWith("test5.txt"));
 
         FileResult sixth = results.get(5);
         assertEquals(35, sixth.getScore());
-        assertTrue(sixth.getRank().compareTo(new BigDecimal("35.3080827")) == 0);
-        assertTrue(sixth.getPath().endsWith("test7.txt"));
+        assertTrue(sixth.getRank().compareTo(new BigDecimal("35.25011978129160000042515305957172763")) == 0);
+        assertTrue(sixth.getPath().endsWith("test6.txt"));
 
         FileResult seventh = results.get(6);
         assertEquals(35, seventh.getScore());
-        assertTrue(seventh.getRank().compareTo(new BigDecimal("35.2905354")) == 0);
-        assertTrue(seventh.getPath().endsWith("test6.txt"));
+        assertTrue(seventh.getRank().compareTo(new BigDecimal("35.2501197812916000004251528077871518289")) == 0);
+        assertTrue(seventh.getPath().endsWith("test7.txt"));
 
         FileResult eighth = results.get(7);
         assertEquals(35, eighth.getScore());
@@ -213,13 +421,412 @@ public class SearchEngineTest {
 
         FileResult ninth = results.get(8);
         assertEquals(20, ninth.getScore());
-        assertTrue(ninth.getRank().compareTo(new BigDecimal("20.2500783012396936601594323")) == 0);
-        assertTrue(ninth.getPath().endsWith("test14.txt"));
+        assertTrue(ninth.getRank().compareTo(new BigDecimal("20.2506183012393000001594323")) == 0);
+        assertTrue(ninth.getPath().endsWith("test10.txt"));
 
         FileResult tenth = results.get(9);
         assertEquals(20, tenth.getScore());
-        assertTrue(tenth.getRank().compareTo(new BigDecimal("20.2500783012393118099594323")) == 0);
-        assertTrue(tenth.getPath().endsWith("test15.txt"));
+        assertTrue(tenth.getRank().compareTo(new BigDecimal("20.2500945012393000001594323")) == 0);
+        assertTrue(tenth.getPath().endsWith("test11.txt"));
+    }
+
+    @Test
+    public void search_withSmallMaxResultCount_shouldReturnBestRankedResults() throws FileNotFoundException {
+        SearchEngine topEngine = new SearchEngine(SearchOption.builder().withCaseSensitive(false).withMaxResultCount(3).build());
+        SearchEngine allEngine = new SearchEngine(SearchOption.builder().withCaseSensitive(false).withMaxResultCount(30).build());
+
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        topEngine.indexDirectory(file.getAbsolutePath());
+        allEngine.indexDirectory(file.getAbsolutePath());
+
+        String term = "the brown fox cannot jump over a lazy dog in a place you raise kids in america is a correct statement";
+        List<String> allPaths = allEngine.search(term).stream().map(FileResult::getPath).collect(Collectors.toList());
+
+        assertEquals(allPaths.subList(0, 3), topEngine.search(term).stream().map(FileResult::getPath).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void search_withFastRanking_shouldRankLikeExactRankingWithinTolerance() throws FileNotFoundException {
+        SearchOption options = SearchOption
+                .builder()
+                .withCaseSensitive(false)
+                .withMaxResultCount(30)
+                .withFastRanking(true)
+                .build();
+        SearchEngine fastEngine = new SearchEngine(options);
+        SearchEngine exactEngine = new SearchEngine(SearchOption.builder().withCaseSensitive(false).withMaxResultCount(30).build());
+
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        fastEngine.indexDirectory(file.getAbsolutePath());
+        exactEngine.indexDirectory(file.getAbsolutePath());
+
+        for (String term : Arrays.asList("is", "london bridge", "the brown fox cannot jump over a lazy dog in a place you raise kids in america is a correct statement")) {
+            List<FileResult> exactResults = exactEngine.search(term);
+            List<FileResult> fastResults = fastEngine.search(term);
+
+            assertEquals(exactResults.size(), fastResults.size());
+
+            for (int i = 0; i < exactResults.size(); i++) {
+                BigDecimal exactRank = exactResults.get(i).getRank();
+                double difference = exactRank.subtract(fastResults.get(i).getRank()).abs().doubleValue();
+
+                assertEquals(exactResults.get(i).getPath(), fastResults.get(i).getPath());
+                assertEquals(exactResults.get(i).getScore(), fastResults.get(i).getScore());
+                assertTrue(difference <= exactRank.doubleValue() * SearchOption.FAST_RANKING_TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void search_withBm25Scorer_shouldRankShorterFilesFirstRegardlessOfWordOrder(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        String indexFile = tempDir.resolve("test.idx").toString();
+        Files.write(directory.resolve("a.txt"), "london is a big city with a bridge over the river".getBytes());
+        Files.write(directory.resolve("b.txt"), "london bridge".getBytes());
+        Files.write(directory.resolve("c.txt"), "paris".getBytes());
+
+        SearchOption options = SearchOption
+                .builder()
+                .withCaseSensitive(false)
+                .withMaxResultCount(10)
+                .withScorer(new Bm25Scorer())
+                .build();
+        SearchEngine bm25Engine = new SearchEngine(options);
+        bm25Engine.indexDirectory(directory.toString());
+        bm25Engine.writeIndex(indexFile);
+
+        List<FileResult> results = bm25Engine.search("london bridge");
+        List<FileResult> reversedResults = bm25Engine.search("bridge london");
+
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).getPath().endsWith("b.txt"));
+        assertTrue(results.get(0).getRank().compareTo(results.get(1).getRank()) > 0);
+        assertEquals(100, results.get(1).getScore());
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getPath(), reversedResults.get(i).getPath());
+            assertEquals(0, results.get(i).getRank().compareTo(reversedResults.get(i).getRank()));
+        }
+
+        SearchEngine loadedEngine = new SearchEngine(options);
+        loadedEngine.loadIndex(indexFile);
+        List<FileResult> loadedResults = loadedEngine.search("london bridge");
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i).getPath(), loadedResults.get(i).getPath());
+            assertEquals(0, results.get(i).getRank().compareTo(loadedResults.get(i).getRank()));
+        }
+    }
+
+    @Test
+    public void search_withPhraseAndProximityQueries_shouldMatchThroughIndexedPositions(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        String indexFile = tempDir.resolve("test.idx").toString();
+        Files.write(directory.resolve("a.txt"), "the connection was reset by the peer".getBytes());
+        Files.write(directory.resolve("b.txt"), "Connection reset by peer".getBytes());
+        Files.write(directory.resolve("c.txt"), "reset the connection".getBytes());
+        Files.write(directory.resolve("d.txt"), "error after a long timeout".getBytes());
+        Files.write(directory.resolve("e.txt"), "timeout then error".getBytes());
+        Files.write(directory.resolve("f.txt"), "error one two three four five six timeout".getBytes());
+
+        SearchOption options = SearchOption
+                .builder()
+                .withCaseSensitive(false)
+                .withMaxResultCount(10)
+                .withIndexPositions(true)
+                .build();
+        SearchEngine positionalEngine = new SearchEngine(options);
+        positionalEngine.indexDirectory(directory.toString());
+        positionalEngine.writeIndex(indexFile);
+        engine.indexDirectory(directory.toString());
+
+        assertEquals(Arrays.asList("b.txt"), searchFileNames(positionalEngine, "\"connection reset\""));
+        assertEquals(Arrays.asList("a.txt", "c.txt"), searchFileNames(positionalEngine, "\"the connection\""));
+        assertEquals(Arrays.asList("d.txt", "e.txt"), searchFileNames(positionalEngine, "error NEAR/5 timeout"));
+        assertEquals(searchFileNames(engine, "connection reset peer"), searchFileNames(positionalEngine, "connection reset peer"));
+
+        SearchEngine loadedEngine = new SearchEngine(options);
+        loadedEngine.loadIndex(indexFile);
+
+        assertEquals(Arrays.asList("d.txt", "e.txt"), searchFileNames(loadedEngine, "error NEAR/5 timeout"));
+
+        Files.write(directory.resolve("b.txt"), "connection lost".getBytes());
+        directory.resolve("b.txt").toFile().setLastModified(System.currentTimeMillis() + 2000);
+        loadedEngine.updateDirectory(directory.toString());
+
+        assertTrue(loadedEngine.search("\"connection reset\"").isEmpty());
+        assertEquals(Arrays.asList("a.txt", "c.txt"), searchFileNames(loadedEngine, "\"the connection\""));
+
+        Throwable exception = assertThrows(IllegalArgumentException.class, () -> engine.search("\"connection reset\""));
+
+        assertEquals(ConsoleMessage.POSITIONS_NOT_INDEXED.getMessage(), exception.getMessage());
+    }
+
+    @Test
+    public void search_withBooleanQueries_shouldMatchRequiredAndExcludedClauses(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Files.write(directory.resolve("a.txt"), "apple banana cherry".getBytes());
+        Files.write(directory.resolve("b.txt"), "apple banana".getBytes());
+        Files.write(directory.resolve("c.txt"), "apple cherry".getBytes());
+        Files.write(directory.resolve("d.txt"), "banana cherry".getBytes());
+        Files.write(directory.resolve("e.txt"), "durian".getBytes());
+
+        engine.indexDirectory(directory.toString());
+
+        assertEquals(Arrays.asList("a.txt", "b.txt"), sorted(searchFileNames(engine, "apple AND banana")));
+        assertEquals(Arrays.asList("b.txt"), searchFileNames(engine, "apple NOT cherry"));
+        assertEquals(Arrays.asList("a.txt", "d.txt"), sorted(searchFileNames(engine, "banana AND cherry AND NOT durian")));
+        assertEquals(Arrays.asList("c.txt", "e.txt"), sorted(searchFileNames(engine, "(apple OR durian) AND NOT banana")));
+        assertEquals(Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt"), sorted(searchFileNames(engine, "apple banana")));
+        assertTrue(engine.search("apple AND banana").stream().allMatch(f -> f.getScore() == 100));
+        assertTrue(engine.search("apple AND grape").isEmpty());
+
+        Throwable exception = assertThrows(IllegalArgumentException.class, () -> engine.search("apple AND"));
+
+        assertEquals(ConsoleMessage.INVALID_QUERY.getMessage(), exception.getMessage());
+    }
+
+    @Test
+    public void search_withBoundedScorerAndSmallMaxResultCount_shouldReturnSameBestFilesAsExhaustiveRanking(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Random random = new Random(11);
+
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+
+            for (int j = 0; j < 20; j++) {
+                text.append(random.nextInt(10) == 0 ? "rare " : random.nextBoolean() ? "common " : "filler ");
+            }
+            Files.write(directory.resolve(String.format("%03d.txt", i)), text.toString().getBytes());
+        }
+
+        SearchEngine exhaustiveEngine = new SearchEngine(SearchOption.builder().withMaxResultCount(200).withScorer(new Bm25Scorer()).build());
+        SearchEngine topEngine = new SearchEngine(SearchOption.builder().withMaxResultCount(5).withScorer(new Bm25Scorer()).build());
+        exhaustiveEngine.indexDirectory(directory.toString());
+        topEngine.indexDirectory(directory.toString());
+
+        for (String query : Arrays.asList("rare common", "common", "rare AND common", "common NOT rare")) {
+            List<FileResult> expected = exhaustiveEngine.search(query);
+            List<FileResult> actual = topEngine.search(query);
+
+            assertEquals(Math.min(5, expected.size()), actual.size());
+
+            for (int i = 0; i < actual.size(); i++) {
+                assertEquals(expected.get(i).getPath(), actual.get(i).getPath());
+                assertEquals(0, expected.get(i).getRank().compareTo(actual.get(i).getRank()));
+            }
+        }
+    }
+
+    @Test
+    public void search_withQueryCache_shouldReuseResultsOfSameNormalizedQueryUntilIndexChanges(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Files.write(directory.resolve("a.txt"), "apple banana".getBytes());
+        Files.write(directory.resolve("b.txt"), "banana cherry".getBytes());
+
+        SearchEngine cachingEngine = new SearchEngine(SearchOption.builder().withMaxResultCount(10).withQueryCacheSize(8).build());
+        cachingEngine.indexDirectory(directory.toString());
+
+        List<FileResult> results = cachingEngine.search("Banana apple");
+
+        List<FileResult> cached = cachingEngine.search("  banana APPLE banana");
+
+        assertNotSame(results, cached);
+        assertEquals(results.get(0).getPath(), cached.get(0).getPath());
+        assertEquals(ArrayList.class, cached.getClass());
+        assertEquals(2, cachingEngine.search("apple banana").size());
+        assertEquals(1, cachingEngine.getQueryCache().getHitCount());
+        assertEquals(2, cachingEngine.getQueryCache().getMissCount());
+
+        Files.write(directory.resolve("c.txt"), "apple".getBytes());
+        cachingEngine.updateDirectory(directory.toString());
+
+        assertEquals(0, cachingEngine.getQueryCache().size());
+        assertEquals(3, cachingEngine.search("banana apple").size());
+        assertNull(engine.getQueryCache());
+    }
+
+    @Test
+    public void indexDirectory_withExtractorsAndPatterns_shouldIndexSelectedFilesOnly(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Files.createDirectory(directory.resolve("archive"));
+        Files.write(directory.resolve("app.LOG"), "apple".getBytes());
+        Files.write(directory.resolve("notes.md"), "apple banana".getBytes());
+        Files.write(directory.resolve("image.png"), "apple".getBytes());
+        Files.write(directory.resolve("huge.txt"), String.join(" ", Collections.nCopies(20, "apple cherry")).getBytes());
+        Files.write(directory.resolve("archive/old.csv"), "apple".getBytes());
+        Files.write(directory.resolve("report.dat"), "REPORT apple".getBytes());
+
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(directory.resolve("app.log.1.gz")))) {
+            output.write("apple cherry".getBytes());
+        }
+
+        for (int threads : new int[]{1, 4}) {
+            SearchEngine selectingEngine = new SearchEngine(SearchOption.builder()
+                    .withMaxResultCount(10)
+                    .withIndexingThreads(threads)
+                    .withRetainContent(threads > 1)
+                    .withExtractor("REPORT".getBytes(), Extractor.TEXT)
+                    .withExcludePattern("archive/**")
+                    .withMaxFileSize(100)
+                    .build());
+            selectingEngine.indexDirectory(directory.toString());
+
+            List<String> indexedFileNames = selectingEngine.getIndexedFiles()
+                    .stream()
+                    .map(f -> f.getPath().substring(f.getPath().lastIndexOf(File.separator) + 1))
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            assertEquals(Arrays.asList("app.LOG", "app.log.1.gz", "notes.md", "report.dat"), indexedFileNames);
+            assertEquals(1, selectingEngine.search("cherry").size());
+            assertEquals(4, selectingEngine.search("apple").size());
+        }
+    }
+
+    @Test
+    public void getMetrics_withShardEngine_shouldRecordNothingAndCacheNoResults(@TempDir Path tempDir) throws IOException {
+        Files.write(tempDir.resolve("a.txt"), "apple banana".getBytes());
+
+        SearchEngine shard = new SearchEngine(SearchOption.builder().withMaxResultCount(10).withQueryCacheSize(8).build(), false);
+        shard.indexDirectory(tempDir.toString());
+
+        assertEquals(1, shard.search("banana").size());
+        assertEquals(1, shard.search("banana").size());
+        assertNull(shard.getQueryCache());
+        assertEquals(0, shard.getMetrics().getFilesWalked());
+        assertEquals(0, shard.getMetrics().getQueryCount());
+        assertEquals(0, shard.getMetrics().getDocumentsMatched());
+    }
+
+    @Test
+    public void getMetrics_afterIndexingAndSearching_shouldCountFilesTermsQueriesAndCacheHits(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Files.write(directory.resolve("a.txt"), "apple banana apple".getBytes());
+        Files.write(directory.resolve("b.txt"), "banana cherry".getBytes());
+
+        SearchEngine measuredEngine = new SearchEngine(SearchOption.builder().withMaxResultCount(10).withQueryCacheSize(8).build());
+        measuredEngine.indexDirectory(directory.toString());
+        measuredEngine.search("banana");
+        measuredEngine.search("banana");
+        measuredEngine.search("apple cherry");
+
+        Files.write(directory.resolve("c.txt"), "apple".getBytes());
+        measuredEngine.updateDirectory(directory.toString());
+
+        SearchMetrics metrics = measuredEngine.getMetrics();
+
+        assertEquals(5, metrics.getFilesWalked());
+        assertEquals(3, metrics.getFilesRead());
+        assertEquals(18 + 13 + 5, metrics.getBytesRead());
+        assertEquals(6, metrics.getTermsEmitted());
+        assertEquals(3, metrics.getQueryCount());
+        assertEquals(4, metrics.getDocumentsMatched());
+        assertEquals(1, metrics.getCacheHitCount());
+        assertEquals(2, metrics.getCacheMissCount());
+        assertTrue(metrics.getQueryLatencyP50Micros() <= metrics.getQueryLatencyMaxMicros());
+        assertTrue(metrics.getQueryLatencyMaxMicros() > 0);
+    }
+
+    @Test
+    public void getMetrics_afterIndexingUnreadableFile_shouldCountFailedFile(@TempDir Path tempDir) throws IOException {
+        Path directory = Files.createDirectory(tempDir.resolve("files"));
+        Files.write(directory.resolve("a.txt"), "apple".getBytes());
+        Files.createSymbolicLink(directory.resolve("b.txt"), tempDir.resolve("missing.txt"));
+
+        SearchEngine measuredEngine = new SearchEngine(SearchOption.builder().build());
+        measuredEngine.indexDirectory(directory.toString());
+
+        assertEquals(1, measuredEngine.getMetrics().getFilesFailed());
+        assertEquals(0, new SearchEngine(SearchOption.builder().build()).getMetrics().getFilesFailed());
+    }
+
+    @Test
+    public void search_withConcurrentQueries_shouldReturnSameResultsAsSequentialQueries() throws Exception {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        engine.indexDirectory(file.getAbsolutePath());
+
+        List<String> terms = Arrays.asList("is", "london bridge", "a correct statement", "the brown fox cannot jump over a lazy dog");
+        List<List<String>> expectedPaths = terms.stream()
+                .map(term -> engine.search(term).stream().map(FileResult::getPath).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Boolean>> searches = new ArrayList<>();
+
+            for (int i = 0; i < 200; i++) {
+                final int term = i % terms.size();
+                searches.add(executor.submit(() -> expectedPaths.get(term).equals(engine.search(terms.get(term))
+                        .stream().map(FileResult::getPath).collect(Collectors.toList()))));
+            }
+
+            for (Future<Boolean> search : searches) {
+                assertTrue(search.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void search_withTermsAndExecutor_shouldReturnResultsOfEachTermInOrder() throws FileNotFoundException {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        engine.indexDirectory(file.getAbsolutePath());
+
+        List<String> terms = Arrays.asList("is", "CLAP", "london bridge");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            List<List<FileResult>> results = engine.search(terms, executor);
+
+            assertEquals(terms.size(), results.size());
+
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(engine.search(terms.get(i)).stream().map(FileResult::getPath).collect(Collectors.toList()),
+                        results.get(i).stream().map(FileResult::getPath).collect(Collectors.toList()));
+            }
+
+            Throwable exception = assertThrows(IllegalArgumentException.class,
+                    () -> engine.search(Arrays.asList("is", "!!"), executor));
+
+            assertEquals(ConsoleMessage.EMPTY_SEARCH_TERM.getMessage(), exception.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void search_withWholeWordMatch_shouldNotMatchInsideLongerWords() throws FileNotFoundException {
+        SearchOption options = SearchOption
+                .builder()
+                .withCaseSensitive(false)
+                .withMaxResultCount(30)
+                .withWholeWordMatch(true)
+                .build();
+        SearchEngine wholeWordEngine = new SearchEngine(options);
+
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        File file = new File(classLoader.getResource(TEST_FILE_FOLDER).getFile());
+
+        wholeWordEngine.indexDirectory(file.getAbsolutePath());
+
+        assertTrue(wholeWordEngine.search("londo").isEmpty());
+        assertEquals(1, wholeWordEngine.search("london").size());
+
+        List<FileResult> results = wholeWordEngine.search("simple");
+
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).getPath().endsWith("test20.txt"));
     }
 
     @Test
@@ -233,4 +840,15 @@ public class SearchEngineTest {
 
         assertEquals(0, results.size());
     }
+
+    private static List<String> searchFileNames(SearchEngine searchEngine, String term) {
+        return searchEngine.search(term)
+                .stream()
+                .map(f -> f.getPath().substring(f.getPath().lastIndexOf("/") + 1))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<String> fileNames) {
+        return fileNames.stream().sorted().collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,102 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.qooria.filesearch.common.ConsoleMessage;
+import com.qooria.filesearch.dto.FileResult;
+import com.qooria.filesearch.dto.IndexedFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ShardedSearchEngineTest {
+    private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta"};
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void search_withBm25Scorer_shouldReturnSameResultsAsSingleEngine(@TempDir Path tempDir) throws IOException {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 60; i++) {
+            Path directory = Files.createDirectories(tempDir.resolve("dir" + i % 4));
+            StringBuilder text = new StringBuilder();
+
+            for (int j = 0; j < 5 + random.nextInt(40); j++) {
+                text.append(WORDS[(int) Math.min(WORDS.length - 1, Math.abs(random.nextGaussian()) * 3)]).append(' ');
+            }
+            Files.write(directory.resolve("file" + i + ".txt"), text.toString().getBytes());
+        }
+
+        SearchOption options = SearchOption.builder().withMaxResultCount(10).withScorer(new Bm25Scorer()).build();
+        SearchEngine engine = new SearchEngine(options);
+        ShardedSearchEngine shardedEngine = new ShardedSearchEngine(options, 3, executor);
+        engine.indexDirectory(tempDir.toString());
+        List<IndexedFile> files = shardedEngine.indexDirectory(tempDir.toString());
+
+        assertEquals(engine.getIndexedFiles().size(), files.size());
+        assertEquals(files.size(), files.stream().map(IndexedFile::getPath).distinct().count());
+
+        for (String query : Arrays.asList("theta", "eta theta", "alpha zeta", "gamma AND NOT delta", "\"beta\" epsilon")) {
+            List<FileResult> expected = engine.search(query);
+            List<FileResult> actual = shardedEngine.search(query);
+
+            assertEquals(expected.size(), actual.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(0, expected.get(i).getRank().compareTo(actual.get(i).getRank()));
+            }
+            assertEquals(expected.stream().map(FileResult::getPath).sorted().collect(Collectors.toList()),
+                    actual.stream().map(FileResult::getPath).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void updateDirectory_withChangedFiles_shouldKeepEveryFileInOneShard(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 10; i++) {
+            Files.write(tempDir.resolve("file" + i + ".txt"), ("common word" + i).getBytes());
+        }
+
+        ShardedSearchEngine shardedEngine = new ShardedSearchEngine(SearchOption.builder().withMaxResultCount(20).build(), 4, executor);
+        shardedEngine.indexDirectory(tempDir.toString());
+        Files.delete(tempDir.resolve("file0.txt"));
+        Files.write(tempDir.resolve("file10.txt"), "common".getBytes());
+
+        List<IndexedFile> files = shardedEngine.updateDirectory(tempDir.toString());
+
+        assertEquals(10, files.size());
+        assertEquals(10, shardedEngine.search("common").size());
+        assertTrue(shardedEngine.search("word0").isEmpty());
+    }
+
+    @Test
+    public void constructor_withNoShard_shouldThrowIllegalArgumentException() {
+        Throwable exception = assertThrows(IllegalArgumentException.class,
+                () -> new ShardedSearchEngine(SearchOption.builder().build(), 0, executor));
+
+        assertEquals(ConsoleMessage.INVALID_INPUT.getMessage(), exception.getMessage());
+    }
+}
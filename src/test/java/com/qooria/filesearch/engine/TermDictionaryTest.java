@@ -0,0 +1,87 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class TermDictionaryTest {
+
+    @Test
+    public void getOrdinal_withRandomTerms_shouldReturnSortedPositionOrMinusOne() {
+        Random random = new Random(17);
+        List<String> terms = new ArrayList<>(randomTerms(random, 1000));
+        TermDictionary dictionary = TermDictionary.of(terms);
+
+        assertEquals(terms.size(), dictionary.size());
+        assertEquals(terms, new ArrayList<>(dictionary.getTerms()));
+
+        for (int i = 0; i < terms.size(); i++) {
+            assertEquals(i, dictionary.getOrdinal(terms.get(i)));
+            assertEquals(terms.get(i), dictionary.getTerm(i));
+        }
+
+        for (String term : randomTerms(random, 1000)) {
+            assertEquals(Collections.binarySearch(terms, term) >= 0 ? terms.indexOf(term) : -1, dictionary.getOrdinal(term));
+        }
+    }
+
+    @Test
+    public void getTerms_withPrefix_shouldReturnTermsStartingWithPrefixInOrder() {
+        Random random = new Random(19);
+        List<String> terms = new ArrayList<>(randomTerms(random, 1000));
+        TermDictionary dictionary = TermDictionary.of(terms);
+
+        for (String prefix : Arrays.asList("", "a", "ab", "c", "cab", "zz", "b0")) {
+            List<String> expected = terms.stream().filter(t -> t.startsWith(prefix)).collect(Collectors.toList());
+
+            assertEquals(expected, new ArrayList<>(dictionary.getTerms(prefix)));
+            assertEquals(expected.size(), dictionary.getTerms(prefix).size());
+        }
+    }
+
+    @Test
+    public void forEachTerm_withRandomTerms_shouldVisitTermsAsBytesByOrdinal() {
+        List<String> terms = new ArrayList<>(randomTerms(new Random(23), 1000));
+        TermDictionary dictionary = TermDictionary.of(terms);
+        List<String> visited = new ArrayList<>();
+
+        dictionary.forEachTerm((ordinal, term, length) -> {
+            assertEquals(visited.size(), ordinal);
+            visited.add(new String(term, 0, length, StandardCharsets.UTF_8));
+        });
+
+        assertEquals(terms, visited);
+    }
+
+    @Test
+    public void of_withNoTerms_shouldBuildEmptyDictionary() {
+        TermDictionary dictionary = TermDictionary.of(Collections.emptyList());
+
+        assertEquals(0, dictionary.size());
+        assertEquals(-1, dictionary.getOrdinal("london"));
+        assertEquals(0, dictionary.getTerms("l").size());
+    }
+
+    private static TreeSet<String> randomTerms(Random random, int count) {
+        TreeSet<String> terms = new TreeSet<>();
+
+        while (terms.size() < count) {
+            char[] term = new char[1 + random.nextInt(6)];
+            for (int i = 0; i < term.length; i++) {
+                term[i] = "abc0".charAt(random.nextInt(4));
+            }
+            terms.add(new String(term));
+        }
+
+        return terms;
+    }
+}
@@ -0,0 +1,78 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TopDocumentsTest {
+
+    @Test
+    public void sort_withMoreFilesThanCapacity_shouldKeepBestRankedFilesLikeFullSort() {
+        Random random = new Random(7);
+        TopDocuments topDocuments = new TopDocuments(10);
+        List<double[]> files = new ArrayList<>();
+
+        for (int id = 0; id < 1000; id++) {
+            double rank = random.nextInt(50);
+            topDocuments.offer(id, id, rank);
+            files.add(new double[]{rank, id});
+        }
+
+        files.sort(Comparator.comparingDouble((double[] file) -> -file[0]).thenComparingDouble(file -> file[1]));
+        topDocuments.sort();
+
+        assertEquals(10, topDocuments.size());
+
+        for (int i = 0; i < topDocuments.size(); i++) {
+            assertEquals((int) files.get(i)[1], topDocuments.getDocumentId(i));
+            assertEquals(topDocuments.getDocumentId(i), topDocuments.getScore(i));
+            assertEquals(files.get(i)[0], topDocuments.getRank(i));
+        }
+    }
+
+    @Test
+    public void sort_withZeroCapacity_shouldKeepNoFile() {
+        TopDocuments topDocuments = new TopDocuments(0);
+
+        topDocuments.offer(1, 100, 100.25);
+        topDocuments.sort();
+
+        assertEquals(0, topDocuments.size());
+    }
+
+    @Test
+    public void getThreshold_withFullHeap_shouldReturnRankOfWorstFileKept() {
+        TopDocuments topDocuments = new TopDocuments(2);
+
+        topDocuments.offer(1, 100, 3.0);
+        assertEquals(Double.NEGATIVE_INFINITY, topDocuments.getThreshold());
+
+        topDocuments.offer(2, 100, 5.0);
+        topDocuments.offer(3, 100, 4.0);
+        assertEquals(4.0, topDocuments.getThreshold());
+        assertEquals(Double.POSITIVE_INFINITY, new TopDocuments(0).getThreshold());
+    }
+
+    @Test
+    public void sort_withExactRanksEqualAsDoubles_shouldRankByExactRank() {
+        TopDocuments topDocuments = new TopDocuments(2);
+        BigDecimal rank = new BigDecimal("100.25");
+        BigDecimal higherRank = rank.add(new BigDecimal("1e-30"));
+
+        topDocuments.offer(1, 100, rank.doubleValue(), rank);
+        topDocuments.offer(2, 100, rank.doubleValue(), rank);
+        topDocuments.offer(3, 100, higherRank.doubleValue(), higherRank);
+        topDocuments.sort();
+
+        assertEquals(2, topDocuments.size());
+        assertEquals(3, topDocuments.getDocumentId(0));
+        assertEquals(higherRank, topDocuments.getExactRank(0));
+        assertEquals(1, topDocuments.getDocumentId(1));
+    }
+}
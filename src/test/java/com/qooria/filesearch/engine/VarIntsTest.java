@@ -0,0 +1,47 @@
+package com.qooria.filesearch.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class VarIntsTest {
+
+    @Test
+    public void read_withWrittenValues_shouldReturnValuesAndTheirLengths() {
+        int[] values = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE};
+        byte[] data = new byte[values.length * 5];
+        int length = 0;
+
+        for (int value : values) {
+            int offset = VarInts.write(data, length, value);
+
+            assertEquals(VarInts.length(value), offset - length);
+            length = offset;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        int offset = 0;
+
+        for (int value : values) {
+            assertEquals(value, VarInts.read(data, offset));
+            assertEquals(value, VarInts.read(buffer, offset));
+            assertEquals(offset + VarInts.length(value), VarInts.skip(data, offset));
+            offset = VarInts.skip(data, offset);
+        }
+
+        assertEquals(length, offset);
+    }
+
+    @Test
+    public void sharedPrefix_withPaths_shouldReturnLengthOfCommonPrefix() {
+        byte[] first = "/data/a/file-1.txt".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(13, VarInts.sharedPrefix(first, "/data/a/file-2.txt".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5, VarInts.sharedPrefix(first, "/data".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(0, VarInts.sharedPrefix(new byte[0], first));
+    }
+}